@@ -0,0 +1,91 @@
+package edu.pro.benchmark;
+
+import edu.pro.Word;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * The counting algorithms of the earlier projects, copied from their {@code Main} classes
+ * without the printing so they can be measured on the same input as the new engines.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class Baselines
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+final class Baselines {
+
+    private static final Pattern WORD_PATTERN = Pattern.compile("[A-Za-z]+");
+
+    private Baselines() {
+    }
+
+    /**
+     * The algorithm of {@code harry-potter-word-counter}: split the whole text, then count
+     * every distinct word with a separate pass over all words.
+     *
+     * @param file the file to count
+     * @param top the number of most frequent words to return
+     * @return the most frequent words
+     * @throws IOException if the file cannot be read
+     */
+    static List<Word> splitAndFilter(Path file, int top) throws IOException {
+        String content = new String(Files.readAllBytes(file));
+        String contentCleaned = content.replaceAll("[^A-Za-z ]", " ").toLowerCase(Locale.ROOT);
+        String[] words = contentCleaned.split(" +");
+        Set<String> distinctWords = new HashSet<>(Arrays.asList(words));
+
+        List<Word> wordsList = new ArrayList<>();
+        for (String distinct : distinctWords) {
+            int count = (int) Arrays.stream(words)
+                    .filter(distinct::equals)
+                    .count();
+            wordsList.add(new Word(distinct, count));
+        }
+        wordsList.sort(Comparator.comparingLong(Word::getFrequency).reversed());
+        return wordsList.subList(0, Math.min(top, wordsList.size()));
+    }
+
+    /**
+     * The algorithm of {@code harry-potter-word-counter-performanceOptimized}: match words line
+     * by line and count them with {@code HashMap.merge}.
+     *
+     * @param file the file to count
+     * @param top the number of most frequent words to return
+     * @return the most frequent words
+     * @throws IOException if the file cannot be read
+     */
+    static List<Word> regexHashMapMerge(Path file, int top) throws IOException {
+        Map<String, Integer> wordFrequencies = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String currentLine;
+            while ((currentLine = reader.readLine()) != null) {
+                Matcher matcher = WORD_PATTERN.matcher(currentLine.toLowerCase());
+                while (matcher.find()) {
+                    wordFrequencies.merge(matcher.group(), 1, Integer::sum);
+                }
+            }
+        }
+        return wordFrequencies.entrySet().stream()
+                .map(entry -> new Word(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingLong(Word::getFrequency).reversed())
+                .limit(top)
+                .collect(Collectors.toList());
+    }
+}
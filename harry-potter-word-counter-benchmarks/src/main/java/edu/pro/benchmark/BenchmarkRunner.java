@@ -0,0 +1,66 @@
+package edu.pro.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry point of {@code benchmarks.jar}. Runs every benchmark in throughput and sample time
+ * modes with the GC profiler, so each result shows operations per second, p99 time per
+ * operation and allocation rate. Any standard JMH command line option overrides the defaults.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class BenchmarkRunner
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+                .parent(commandLine)
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .addProfiler(GCProfiler.class);
+
+        // Values set on the builder win over the parent, so defaults are applied only where the command line is silent
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include(BenchmarkRunner.class.getPackageName() + ".*");
+        }
+        if (commandLine.getBenchModes().isEmpty()) {
+            builder.mode(Mode.Throughput).mode(Mode.SampleTime);
+        }
+        if (!commandLine.getWarmupIterations().hasValue()) {
+            builder.warmupIterations(3);
+        }
+        if (!commandLine.getWarmupTime().hasValue()) {
+            builder.warmupTime(TimeValue.seconds(5));
+        }
+        if (!commandLine.getMeasurementIterations().hasValue()) {
+            builder.measurementIterations(5);
+        }
+        if (!commandLine.getMeasurementTime().hasValue()) {
+            builder.measurementTime(TimeValue.seconds(10));
+        }
+        if (!commandLine.getJvmArgsAppend().hasValue()) {
+            // Lets the tokenizer use its vector backend in the forked JVMs
+            builder.jvmArgsAppend("--add-modules=jdk.incubator.vector");
+        }
+        if (!commandLine.getForkCount().hasValue()) {
+            builder.forks(1);
+        }
+        new Runner(builder.build()).run();
+    }
+}
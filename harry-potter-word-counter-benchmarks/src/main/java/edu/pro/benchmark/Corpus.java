@@ -0,0 +1,51 @@
+package edu.pro.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Builds the text files the benchmarks count: {@code harry.txt} itself, or a synthetic corpus
+ * made of several copies of it.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class Corpus
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+final class Corpus {
+
+    // System property overriding the location of the source text
+    static final String SOURCE_PROPERTY = "corpus";
+
+    // Location of harry.txt relative to this module
+    static final String DEFAULT_SOURCE = "../harry-potter-word-counter-performanceOptimized/src/edu/pro/txt/harry.txt";
+
+    private Corpus() {
+    }
+
+    /**
+     * Creates a corpus containing the source text the given number of times.
+     *
+     * @param scale the number of copies, where 1 means the source text itself
+     * @return the corpus file, which the caller should delete when done
+     * @throws IOException if the corpus cannot be written
+     */
+    static Path create(int scale) throws IOException {
+        Path source = Paths.get(System.getProperty(SOURCE_PROPERTY, DEFAULT_SOURCE));
+        byte[] text = Files.readAllBytes(source);
+
+        Path corpus = Files.createTempFile("corpus-x" + scale + "-", ".txt");
+        try (OutputStream output = Files.newOutputStream(corpus)) {
+            for (int i = 0; i < scale; i++) {
+                output.write(text);
+                // Keep the last word of one copy apart from the first word of the next one
+                output.write('\n');
+            }
+        }
+        return corpus;
+    }
+}
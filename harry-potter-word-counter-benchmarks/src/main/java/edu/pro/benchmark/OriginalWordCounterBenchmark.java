@@ -0,0 +1,51 @@
+package edu.pro.benchmark;
+
+import edu.pro.Main;
+import edu.pro.Word;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Measures the original split and filter algorithm. It rescans every word once per distinct
+ * word, so it is kept apart from {@link WordCounterBenchmark} and only runs on small corpora.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class OriginalWordCounterBenchmark
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+@State(Scope.Benchmark)
+public class OriginalWordCounterBenchmark {
+
+    // Number of copies of harry.txt in the corpus
+    @Param({"1"})
+    public int scale;
+
+    private Path corpus;
+
+    @Setup
+    public void createCorpus() throws IOException {
+        corpus = Corpus.create(scale);
+    }
+
+    @TearDown
+    public void deleteCorpus() throws IOException {
+        Files.deleteIfExists(corpus);
+    }
+
+    @Benchmark
+    public List<Word> splitAndFilter() throws IOException {
+        return Baselines.splitAndFilter(corpus, Main.TOP_WORDS);
+    }
+}
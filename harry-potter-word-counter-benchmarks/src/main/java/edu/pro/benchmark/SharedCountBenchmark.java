@@ -0,0 +1,77 @@
+package edu.pro.benchmark;
+
+import edu.pro.count.ConcurrentWordCountTable;
+import edu.pro.tokenize.ByteTokenizer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures how counting into one shared structure scales with the number of producer
+ * threads, set with the JMH {@code -t} option. Every operation tokenizes {@code harry.txt}
+ * held in memory and adds all of its words to the shared counts.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class SharedCountBenchmark
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+@State(Scope.Benchmark)
+public class SharedCountBenchmark {
+
+    // Stripes of the shared table; 1 shows the cost of a single lock
+    @Param({"1", "256"})
+    public int stripes;
+
+    private byte[] text;
+    private ConcurrentWordCountTable table;
+    private ConcurrentHashMap<String, Integer> map;
+
+    @Setup
+    public void loadCorpus() throws IOException {
+        Path corpus = Corpus.create(1);
+        text = Files.readAllBytes(corpus);
+        Files.delete(corpus);
+        table = new ConcurrentWordCountTable(stripes);
+        map = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Per-thread state: a producer of the shared table and a private copy of the text, because
+     * the tokenizer folds the text in place.
+     */
+    @State(Scope.Thread)
+    public static class Producer {
+
+        private byte[] text;
+        private ConcurrentWordCountTable.Producer producer;
+
+        @Setup
+        public void create(SharedCountBenchmark benchmark) {
+            text = benchmark.text.clone();
+            producer = benchmark.table.producer();
+        }
+    }
+
+    @Benchmark
+    public void stripedTable(Producer state) {
+        ByteTokenizer.scan(state.text, 0, state.text.length, state.producer);
+        state.producer.flush();
+    }
+
+    @Benchmark
+    public void concurrentHashMapMerge(Producer state) {
+        ByteTokenizer.scan(state.text, 0, state.text.length, (buffer, offset, length) ->
+                map.merge(new String(buffer, offset, length, StandardCharsets.US_ASCII), 1, Integer::sum));
+    }
+}
@@ -0,0 +1,54 @@
+package edu.pro.benchmark;
+
+import edu.pro.tokenize.ScalarScanBackend;
+import edu.pro.tokenize.ScanBackend;
+import edu.pro.tokenize.VectorScanBackend;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compares the scan backends of the byte tokenizer on a corpus held in memory, so the result
+ * is the cost of classifying bytes, folding case and finding word boundaries alone.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class TokenizerBenchmark
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+@State(Scope.Benchmark)
+public class TokenizerBenchmark {
+
+    // Number of copies of harry.txt in the corpus
+    @Param({"10"})
+    public int scale;
+
+    @Param({ScalarScanBackend.NAME, VectorScanBackend.NAME})
+    public String backend;
+
+    private byte[] text;
+    private ScanBackend scanner;
+
+    @Setup
+    public void loadCorpus() throws IOException {
+        Path corpus = Corpus.create(scale);
+        text = Files.readAllBytes(corpus);
+        Files.delete(corpus);
+        scanner = backend.equals(VectorScanBackend.NAME) ? new VectorScanBackend() : new ScalarScanBackend();
+    }
+
+    @Benchmark
+    public int scan(Blackhole blackhole) {
+        // Folding is idempotent, so scanning the same buffer again does the same work
+        return scanner.scan(text, 0, text.length, (buffer, offset, length) -> blackhole.consume(length));
+    }
+}
@@ -0,0 +1,76 @@
+package edu.pro.benchmark;
+
+import edu.pro.Main;
+import edu.pro.Word;
+import edu.pro.count.ParallelWordCounter;
+import edu.pro.count.WordCountTable;
+import edu.pro.pipeline.WordCountPipeline;
+import edu.pro.rank.TopK;
+import edu.pro.tokenize.ByteTokenizer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Compares the word counting engines on {@code harry.txt} and on corpora made of 10 to 1000
+ * copies of it. Every operation counts the whole corpus and ranks the top 30 words.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class WordCounterBenchmark
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+@State(Scope.Benchmark)
+public class WordCounterBenchmark {
+
+    // Number of copies of harry.txt in the corpus
+    @Param({"1", "10", "100", "1000"})
+    public int scale;
+
+    private Path corpus;
+
+    @Setup
+    public void createCorpus() throws IOException {
+        corpus = Corpus.create(scale);
+    }
+
+    @TearDown
+    public void deleteCorpus() throws IOException {
+        Files.deleteIfExists(corpus);
+    }
+
+    @Benchmark
+    public List<Word> regexHashMapMerge() throws IOException {
+        return Baselines.regexHashMapMerge(corpus, Main.TOP_WORDS);
+    }
+
+    @Benchmark
+    public List<Word> mappedTable() throws IOException {
+        WordCountTable table = new WordCountTable();
+        ByteTokenizer.tokenize(corpus, table);
+        return TopK.words(table, Main.TOP_WORDS);
+    }
+
+    @Benchmark
+    public List<Word> parallelTable() throws IOException {
+        WordCountTable table = ParallelWordCounter.count(corpus, Runtime.getRuntime().availableProcessors());
+        return TopK.words(table, Main.TOP_WORDS);
+    }
+
+    @Benchmark
+    public List<Word> pipelineTable() throws IOException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        WordCountPipeline pipeline = new WordCountPipeline(1, Math.max(1, cores / 2), Math.max(1, cores / 4), 16);
+        return TopK.words(pipeline.run(List.of(corpus)), Main.TOP_WORDS);
+    }
+}
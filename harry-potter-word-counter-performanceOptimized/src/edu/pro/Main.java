@@ -3,11 +3,63 @@ package edu.pro;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.io.InputStream;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import edu.pro.approx.ApproximateWordCounter;
+import edu.pro.approx.HyperLogLog;
+import edu.pro.count.ConcurrentWordCountTable;
+import edu.pro.count.Footprint;
+import edu.pro.count.ParallelWordCounter;
+import edu.pro.count.WordCountTable;
+import edu.pro.count.WordCounts;
+import edu.pro.diff.CorpusDiff;
+import edu.pro.diff.WordChange;
+import edu.pro.gzip.GzipInput;
+import edu.pro.index.WordIndex;
+import edu.pro.index.WordIndexMerger;
+import edu.pro.index.WordIndexWriter;
+import edu.pro.metrics.GcMonitor;
+import edu.pro.metrics.MeteredWordCounter;
+import edu.pro.ngram.NGramCounter;
+import edu.pro.normalize.NormalizerChain;
+import edu.pro.normalize.StopWords;
+import edu.pro.offheap.OffHeapWordTable;
+import edu.pro.metrics.Phase;
+import edu.pro.metrics.RunMetrics;
+import edu.pro.metrics.ThreadAllocation;
+import edu.pro.pipeline.StageStats;
+import edu.pro.pipeline.WordCountPipeline;
+import edu.pro.rank.TopK;
+import edu.pro.rank.TopWords;
+import edu.pro.server.WordQueryServer;
+import edu.pro.shard.Shard;
+import edu.pro.shard.ShardCoordinator;
+import edu.pro.shard.ShardWorker;
+import edu.pro.spill.SpillingWordCounter;
+import edu.pro.stream.Snapshot;
+import edu.pro.stream.StreamingWordCounter;
+import edu.pro.tokenize.ByteTokenizer;
+import edu.pro.tokenize.IncrementalTokenizer;
+import edu.pro.tokenize.UnicodeTokenizer;
+import edu.pro.trend.TrendTracker;
+import edu.pro.trie.DoubleArrayTrie;
+import edu.pro.trie.DoubleArrayTrieBuilder;
 
 /**
  * Main class for processing a text file and displaying word frequencies.
@@ -15,7 +67,7 @@ import java.util.regex.Pattern;
  * @author Volodymyr Voroniuk
  * @project harry-potter-word-counter
  * @class Main
- * @version 1.0.2
+ * @version 1.0.26
  * @since 11.03.24 - 11.10
  */
 public class Main {
@@ -23,10 +75,874 @@ public class Main {
     // Constant for the file path to make it easy to change the file location if necessary
     public static final String FILE_PATH = "src/edu/pro/txt/harry.txt";
 
+    // Number of most frequent words printed in the report unless --top says otherwise
+    public static final int TOP_WORDS = 30;
+
     public static void main(String[] args) throws IOException {
+        Options options = Options.parse(args);
+        int top = options.integer("top", TOP_WORDS);
+
+        String tokenizer = options.string("tokenizer", null);
+        if (tokenizer != null) {
+            ByteTokenizer.useBackend(tokenizer);
+        }
+
+        switch (options.mode()) {
+            case Options.DEFAULT_MODE -> countWithRegex(options.file());
+            case "mapped" -> countMapped(options, top);
+            case "unicode" -> countUnicode(options, top);
+            case "parallel" -> countParallel(options, top);
+            case "shared" -> countShared(options, top);
+            case "shard" -> countSharded(options, top);
+            case "worker" -> countShard(options);
+            case "stream" -> countStream(options, top);
+            case "trend" -> countTrends(options, top);
+            case "pipeline" -> countPipeline(options, top);
+            case "approx" -> countApproximate(options, top);
+            case "distinct" -> estimateDistinct(options);
+            case "ngram" -> countNGrams(options, top);
+            case "spill" -> countSpilling(options, top);
+            case "offheap" -> countOffHeap(options, top);
+            case "query" -> queryIndex(options, top);
+            case "serve" -> serveQueries(options, top);
+            case "complete" -> completeWords(options, top);
+            case "merge" -> mergeIndexes(options);
+            case "diff" -> compareCorpora(options, top);
+            default -> throw new IllegalArgumentException("Unknown mode: " + options.mode());
+        }
+    }
+
+    /**
+     * Counts words with the memory-mapped byte tokenizer.
+     *
+     * @param options the command line options
+     * @param top the number of most frequent words to print
+     * @throws IOException if the file cannot be read
+     */
+    private static void countMapped(Options options, int top) throws IOException {
+        long start = System.nanoTime();
+        RunMetrics metrics = startMetrics(options);
+
+        WordCountTable table;
+        if (metrics != null) {
+            table = MeteredWordCounter.count(options.file(), metrics);
+        } else {
+            table = new WordCountTable();
+            ByteTokenizer.tokenize(options.file(), table);
+        }
+
+        report(table, options, top, start, metrics);
+    }
+
+    /**
+     * Counts the words of UTF-8 text in any script with the table-driven Unicode tokenizer.
+     * Every word passes the normalizers named by {@code --normalize} (case folding by default),
+     * with {@code --stop-words=file} replacing the built-in English stop words.
+     *
+     * @param options the command line options
+     * @param top the number of most frequent words to print
+     * @throws IOException if a file cannot be read
+     */
+    private static void countUnicode(Options options, int top) throws IOException {
+        long start = System.nanoTime();
+
+        String stopWordsFile = options.string("stop-words", null);
+        StopWords stopWords = stopWordsFile == null ? StopWords.english() : StopWords.load(Paths.get(stopWordsFile));
+        WordCountTable table = new WordCountTable();
+        UnicodeTokenizer tokenizer = new UnicodeTokenizer(table,
+                NormalizerChain.parse(options.string("normalize", "fold"), stopWords));
+        for (Path input : WordCountPipeline.expand(options.files())) {
+            tokenizer.tokenize(input);
+        }
+
+        report(table, options, top, start, null);
+    }
+
+    /**
+     * Counts words on several threads, each counting its own byte range of the file.
+     *
+     * @param options the command line options
+     * @param top the number of most frequent words to print
+     * @throws IOException if the file cannot be read
+     */
+    private static void countParallel(Options options, int top) throws IOException {
+        long start = System.nanoTime();
+        RunMetrics metrics = startMetrics(options);
+
+        int threads = options.integer("threads", Runtime.getRuntime().availableProcessors());
+        LongAdder allocatedBytes = new LongAdder();
+        WordCountTable table = ParallelWordCounter.count(options.file(), threads, allocatedBytes);
+
+        if (metrics != null) {
+            // Every task reads, tokenizes and counts its own range, so the phases are only known together
+            metrics.addTime(Phase.COUNT, System.nanoTime() - start);
+            metrics.addAllocation(Phase.COUNT, allocatedBytes.sum());
+            metrics.addBytes(Files.size(options.file()));
+            recordTable(metrics, table);
+        }
+        report(table, options, top, start, metrics);
+    }
+
+    /**
+     * Counts every file of the given files and directories on several threads into one
+     * {@link ConcurrentWordCountTable}. With {@code --interval=ms}, the top words of a
+     * snapshot of the shared table are printed while the threads are still counting.
+     *
+     * @param options the command line options
+     * @param top the number of most frequent words to print
+     * @throws IOException if a file cannot be read
+     */
+    private static void countShared(Options options, int top) throws IOException {
+        long start = System.nanoTime();
+        RunMetrics metrics = startMetrics(options);
+
+        int threads = options.integer("threads", Runtime.getRuntime().availableProcessors());
+        ConcurrentWordCountTable shared = new ConcurrentWordCountTable(options.integer("stripes", threads * 4));
+
+        ScheduledExecutorService printer = null;
+        long interval = options.longValue("interval", 0);
+        if (interval > 0) {
+            printer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "shared-snapshot-printer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            printer.scheduleWithFixedDelay(() -> System.out.println("Snapshot: " + shared.top(5).stream()
+                    .map(word -> word.getWordContent() + "=" + word.getFrequency())
+                    .collect(Collectors.joining(", "))), interval, interval, TimeUnit.MILLISECONDS);
+        }
+
+        long bytes = 0;
+        LongAdder allocatedBytes = new LongAdder();
+        try {
+            for (Path file : WordCountPipeline.expand(options.files())) {
+                ParallelWordCounter.countShared(file, threads, shared, allocatedBytes);
+                bytes += Files.size(file);
+            }
+        } finally {
+            if (printer != null) {
+                printer.shutdownNow();
+            }
+        }
+
+        WordCountTable table = shared.snapshot();
+        if (metrics != null) {
+            // Producers read, tokenize and count together, so the phases are only known together
+            metrics.addTime(Phase.COUNT, System.nanoTime() - start);
+            metrics.addAllocation(Phase.COUNT, allocatedBytes.sum());
+            metrics.addBytes(bytes);
+            recordTable(metrics, table);
+        }
+        report(table, options, top, start, metrics);
+    }
+
+    /**
+     * Counts every file of the given files and directories with the read, tokenize and count
+     * pipeline, then prints the throughput of each stage.
+     *
+     * @param options the command line options
+     * @param top the number of most frequent words to print
+     * @throws IOException if a file cannot be read
+     */
+    private static void countPipeline(Options options, int top) throws IOException {
+        long start = System.nanoTime();
+        RunMetrics metrics = startMetrics(options);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        WordCountPipeline pipeline = new WordCountPipeline(options.integer("readers", 2),
+                options.integer("tokenizers", Math.max(1, cores / 2)),
+                options.integer("counters", Math.max(1, cores / 4)), options.integer("queue", 16));
+        List<Path> files = WordCountPipeline.expand(options.files());
+        WordCountTable table = pipeline.run(files);
+
+        if (metrics != null) {
+            // The stages overlap, so their times are thread times summed over each stage
+            List<StageStats> stages = pipeline.stats();
+            metrics.addTime(Phase.IO, stages.get(0).getBusyNanos());
+            metrics.addTime(Phase.TOKENIZE, stages.get(1).getBusyNanos());
+            metrics.addTime(Phase.COUNT, stages.get(2).getBusyNanos());
+            metrics.addAllocation(Phase.IO, stages.get(0).getAllocatedBytes());
+            metrics.addAllocation(Phase.TOKENIZE, stages.get(1).getAllocatedBytes());
+            metrics.addAllocation(Phase.COUNT, stages.get(2).getAllocatedBytes());
+            metrics.addBytes(stages.get(0).getBytes());
+            recordTable(metrics, table);
+        }
+        report(table, options, top, start, metrics);
+
+        long elapsed = System.nanoTime() - start;
+        System.out.println("------");
+        System.out.println("Pipeline over " + files.size() + " file(s):");
+        pipeline.stats().forEach(stage -> System.out.println(stage.describe(elapsed)));
+    }
+
+    /**
+     * Starts measuring the run if {@code --metrics} is given. With a value, the option names
+     * the JSON report to write; {@code --metrics-interval} sets the period of the console line.
+     *
+     * @param options the command line options
+     * @return the metrics of the run, or {@code null} if they were not requested
+     */
+    private static RunMetrics startMetrics(Options options) {
+        if (!options.has("metrics")) {
+            return null;
+        }
+        RunMetrics metrics = new RunMetrics(options.mode());
+        metrics.startConsole(options.longValue("metrics-interval", 1000), System.out::println);
+        return metrics;
+    }
+
+    /**
+     * Records the words and the table size of a run whose counting loop is not metered.
+     *
+     * @param metrics the metrics of the run
+     * @param table the counted words
+     */
+    private static void recordTable(RunMetrics metrics, WordCountTable table) {
+        long tokens = 0;
+        for (int id = 0; id < table.size(); id++) {
+            tokens += table.count(id);
+        }
+        metrics.addTokens(tokens);
+        metrics.tableSize(table.size(), table.footprintBytes());
+    }
+
+    /**
+     * Prints the report of a counted table, followed by whatever extras the options ask for:
+     * the memory footprint ({@code --footprint}), the full ranking
+     * ({@code --all=file}), a saved index ({@code --save-index=file})
+     * and the run metrics ({@code --metrics}).
+     *
+     * @param table the counted words
+     * @param options the command line options
+     * @param top the number of most frequent words to print
+     * @param startNanos the {@link System#nanoTime()} value taken when counting started
+     * @param metrics the metrics of the run, or {@code null} if they were not requested
+     * @throws IOException if the index or the metrics cannot be written
+     */
+    private static void report(WordCountTable table, Options options, int top, long startNanos,
+                               RunMetrics metrics) throws IOException {
+        long rankStarted = System.nanoTime();
+        long rankAllocated = 0;
+        if (metrics != null) {
+            rankAllocated = ThreadAllocation.current();
+        }
+        List<Word> topWords = TopK.words(table, top);
+        if (metrics != null) {
+            metrics.addTime(Phase.RANK, System.nanoTime() - rankStarted);
+            metrics.addAllocation(Phase.RANK, ThreadAllocation.current() - rankAllocated);
+            metrics.finish();
+        }
+        printReport(topWords, startNanos);
+
+        if (options.flag("footprint")) {
+            System.out.println("------");
+            System.out.println(Footprint.report(table));
+        }
+
+        String rankingFile = options.string("all", null);
+        if (rankingFile != null) {
+            WordCounts counts = WordCounts.of(table);
+            counts.sort();
+            try (Writer writer = Files.newBufferedWriter(Paths.get(rankingFile), StandardCharsets.UTF_8)) {
+                counts.writeTo(writer);
+            }
+            System.out.println("------");
+            System.out.println("Wrote all " + counts.size() + " words by frequency to " + rankingFile);
+        }
+
+        String indexFile = options.string("save-index", null);
+        if (indexFile != null) {
+            WordIndexWriter.write(table, Paths.get(indexFile));
+            System.out.println("------");
+            System.out.println("Saved index of " + table.size() + " words to " + indexFile);
+        }
+
+        if (metrics != null) {
+            metrics.close();
+            System.out.println("------");
+            System.out.println(metrics.summary());
+            String metricsFile = options.string("metrics", "true");
+            if (!metricsFile.equals("true")) {
+                metrics.writeJson(Paths.get(metricsFile));
+                System.out.println("Metrics written to " + metricsFile);
+            }
+        }
+    }
+
+    /**
+     * Answers queries from a saved word index without re-tokenizing the corpus: the count of
+     * {@code --word}, or the most frequent words when no word is given.
+     *
+     * @param options the command line options
+     * @param top the number of most frequent words to print
+     * @throws IOException if the index cannot be read
+     */
+    private static void queryIndex(Options options, int top) throws IOException {
+        long start = System.nanoTime();
+
+        WordIndex index = WordIndex.open(options.file());
+        String word = options.string("word", null);
+        if (word == null) {
+            printReport(index.top(top), start);
+        } else {
+            // The index holds lowercase words, so the word looked up is the one reported
+            String normalized = word.toLowerCase(Locale.ROOT);
+            System.out.println(new Word(normalized, index.frequency(normalized)));
+        }
+    }
+
+    /**
+     * Loads word counts once and answers HTTP queries until the process is stopped. The counts
+     * come from a saved index ({@code --index=file}) or from counting the given files and
+     * directories, which are then indexed in a temporary file.
+     *
+     * @param options the command line options
+     * @param top the number of top words ranked when the server starts
+     * @throws IOException if the counts cannot be loaded or the port cannot be bound
+     */
+    private static void serveQueries(Options options, int top) throws IOException {
+        long start = System.nanoTime();
+
+        String indexFile = options.string("index", null);
+        Path file;
+        if (indexFile != null) {
+            file = Paths.get(indexFile);
+        } else {
+            WordCountTable table = new WordCountTable();
+            for (Path input : WordCountPipeline.expand(options.files())) {
+                ByteTokenizer.tokenize(input, table);
+            }
+            file = Files.createTempFile("words", ".widx");
+            file.toFile().deleteOnExit();
+            WordIndexWriter.write(table, file);
+        }
+
+        WordIndex index = WordIndex.open(file);
+        InetSocketAddress address = new InetSocketAddress(options.string("host", "127.0.0.1"),
+                options.integer("port", 8080));
+        WordQueryServer server = new WordQueryServer(index, address,
+                options.integer("threads", Runtime.getRuntime().availableProcessors() * 2), Math.max(top, 1000));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "word-query-shutdown"));
+        server.start();
+
+        System.out.println("Serving " + index.wordCount() + " words from " + file + " on http://"
+                + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/ after "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " milliseconds");
+    }
+
+    /**
+     * Answers autocomplete queries from a double-array trie: the most frequent {@code --k}
+     * completions of every prefix in {@code --prefix}, then the most frequent words. The trie
+     * is mapped from a {@code .trie} file, built from a {@code .widx} index, or built from
+     * counting the given files and directories; {@code --save-trie=file} keeps it for later runs.
+     *
+     * @param options the command line options
+     * @param top the number of most frequent words to print
+     * @throws IOException if the input cannot be read or the trie cannot be written
+     */
+    private static void completeWords(Options options, int top) throws IOException {
+        long start = System.nanoTime();
+
+        Path file = options.file();
+        String name = file.getFileName().toString();
+        WordCountTable table = null;
+        DoubleArrayTrie trie;
+        if (options.files().size() == 1 && name.endsWith(".trie")) {
+            trie = DoubleArrayTrie.open(file);
+        } else if (options.files().size() == 1 && name.endsWith(".widx")) {
+            trie = DoubleArrayTrieBuilder.of(WordIndex.open(file));
+        } else {
+            table = new WordCountTable();
+            for (Path input : WordCountPipeline.expand(options.files())) {
+                ByteTokenizer.tokenize(input, table);
+            }
+            trie = DoubleArrayTrieBuilder.of(table);
+        }
+
+        String trieFile = options.string("save-trie", null);
+        if (trieFile != null) {
+            trie.write(Paths.get(trieFile));
+        }
+
+        int k = options.integer("k", 5);
+        String prefixes = options.string("prefix", null);
+        if (prefixes != null) {
+            for (String prefix : prefixes.split(",")) {
+                String key = prefix.toLowerCase(Locale.ROOT);
+                System.out.println(key + "*: " + trie.topWithPrefix(key, k).stream()
+                        .map(word -> word.getWordContent() + "=" + word.getFrequency())
+                        .collect(Collectors.joining(", ")));
+            }
+            System.out.println("------");
+        }
+        printReport(trie.topWithPrefix("", top), start);
+
+        if (trieFile != null) {
+            System.out.println("------");
+            System.out.println("Saved trie of " + trie.wordCount() + " words to " + trieFile);
+        }
+        if (options.flag("footprint")) {
+            System.out.println("------");
+            System.out.println("Trie of " + trie.wordCount() + " words: " + trie.slots() + " slots, "
+                    + trie.footprintBytes() + " bytes " + (trie.isMapped() ? "mapped" : "on the heap")
+                    + (table == null ? "" : ", HashMap<String, Integer> estimate " + Footprint.hashMap(table)
+                    + " bytes"));
+        }
+    }
+
+    /**
+     * Merges saved word indexes into the index named by {@code --output}.
+     *
+     * @param options the command line options
+     * @throws IOException if an index cannot be read or written
+     */
+    private static void mergeIndexes(Options options) throws IOException {
+        long start = System.nanoTime();
+
+        Path output = Paths.get(options.string("output", "merged.widx"));
+        WordIndexMerger.merge(options.files(), output);
+
+        WordIndex merged = WordIndex.open(output);
+        System.out.println("Merged " + options.files().size() + " indexes into " + output + ": "
+                + merged.wordCount() + " distinct words, " + merged.totalCount() + " words");
+        System.out.println("------");
+        System.out.println("Execution duration of app is " + (System.nanoTime() - start) / 1_000_000 + " milliseconds");
+    }
+
+    /**
+     * Compares the word counts of two corpora, given as two saved word indexes or two text
+     * files or directories, which are counted and indexed first. The largest changes are
+     * printed for every {@link CorpusDiff.Measure}; words seen fewer than {@code --min-count}
+     * times in both corpora together (default 5) are not ranked by relative change.
+     *
+     * @param options the command line options
+     * @param top the number of changes to print per measure
+     * @throws IOException if a file cannot be read or indexed
+     */
+    private static void compareCorpora(Options options, int top) throws IOException {
+        long start = System.nanoTime();
+
+        List<Path> files = options.files();
+        if (files.size() != 2) {
+            throw new IllegalArgumentException("Expected two corpora to compare, got " + files.size());
+        }
+        WordIndex before = openOrIndex(files.get(0));
+        WordIndex after = openOrIndex(files.get(1));
+
+        long compareStarted = System.nanoTime();
+        CorpusDiff diff = CorpusDiff.compare(before, after, top, options.longValue("min-count", 5));
+        long compareMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - compareStarted);
+
+        System.out.println("Compared " + files.get(0) + " (" + diff.totalBefore() + " words, " + before.wordCount()
+                + " distinct) with " + files.get(1) + " (" + diff.totalAfter() + " words, " + after.wordCount()
+                + " distinct) in " + compareMillis + " ms");
+        System.out.println(diff.sharedWords() + " shared words, " + diff.changedWords() + " of them changed; "
+                + diff.removedWords() + " removed, " + diff.addedWords() + " added");
+        for (CorpusDiff.Measure measure : CorpusDiff.Measure.values()) {
+            System.out.println("------");
+            System.out.println("Largest changes by " + measure.label() + ":\n");
+            for (WordChange change : diff.top(measure)) {
+                System.out.println(change);
+            }
+        }
+
+        System.out.println("------");
+        System.out.println("Execution duration of app is " + (System.nanoTime() - start) / 1_000_000 + " milliseconds");
+    }
+
+    /**
+     * Opens a saved word index, or counts a text file or directory into a temporary one.
+     *
+     * @param file the index, text file or directory
+     * @return the index
+     * @throws IOException if the file cannot be read or the index cannot be written
+     */
+    private static WordIndex openOrIndex(Path file) throws IOException {
+        if (file.getFileName().toString().endsWith(".widx")) {
+            return WordIndex.open(file);
+        }
+        WordCountTable table = new WordCountTable();
+        for (Path input : WordCountPipeline.expand(List.of(file))) {
+            ByteTokenizer.tokenize(input, table);
+        }
+        Path index = Files.createTempFile("corpus", ".widx");
+        index.toFile().deleteOnExit();
+        WordIndexWriter.write(table, index);
+        return WordIndex.open(index);
+    }
+
+    /**
+     * Counts the given files and directories in worker JVMs and merges their partial
+     * results. The corpus is cut into {@code --shards} shards of about equal size, counted by
+     * at most {@code --workers} processes at a time; a failed worker is started again up to
+     * {@code --retries} times. Manifests, partial indexes and worker logs go to
+     * {@code --work-dir} (a temporary directory by default) and are removed after a
+     * successful merge unless {@code --keep} is given. The merged index is written to
+     * {@code --output}, or into the work directory.
+     *
+     * @param options the command line options
+     * @param top the number of most frequent words to print
+     * @throws IOException if a file cannot be read, a shard keeps failing or the merge fails
+     */
+    private static void countSharded(Options options, int top) throws IOException {
+        long start = System.nanoTime();
+
+        int workers = options.integer("workers", Runtime.getRuntime().availableProcessors());
+        String workDirectoryName = options.string("work-dir", null);
+        Path workDirectory = workDirectoryName == null
+                ? Files.createTempDirectory("shards")
+                : Files.createDirectories(Paths.get(workDirectoryName));
+
+        List<Shard> shards = Shard.plan(WordCountPipeline.expand(options.files()), options.integer("shards", workers));
+        for (Shard shard : shards) {
+            System.out.println("[plan] " + shard);
+        }
+
+        // Workers count with the same tokenizer, and the vector one needs its module
+        List<String> jvmOptions = new ArrayList<>();
+        if (ByteTokenizer.isVectorAvailable()) {
+            jvmOptions.addAll(List.of("--add-modules", "jdk.incubator.vector"));
+        }
+        String heap = options.string("worker-heap", null);
+        if (heap != null) {
+            jvmOptions.add("-Xmx" + heap);
+        }
+        List<String> command = ShardCoordinator.workerCommand(jvmOptions,
+                List.of("--tokenizer=" + ByteTokenizer.backend().name()));
+
+        ShardCoordinator coordinator = new ShardCoordinator(workDirectory, workers, options.integer("retries", 2),
+                command, options.integer("numa-nodes", 0), System.out);
+        long countStarted = System.nanoTime();
+        List<Path> partials = coordinator.run(shards);
+        long mergeStarted = System.nanoTime();
+
+        Path output = Paths.get(options.string("output", workDirectory.resolve("counts.widx").toString()));
+        WordIndexMerger.merge(partials, output);
+        WordIndex merged = WordIndex.open(output);
+        long mergeFinished = System.nanoTime();
+        System.out.println("[merge] " + partials.size() + " partials in "
+                + TimeUnit.NANOSECONDS.toMillis(mergeFinished - mergeStarted) + " ms into " + output + ": "
+                + merged.totalCount() + " words, " + merged.wordCount() + " distinct; workers took "
+                + TimeUnit.NANOSECONDS.toMillis(mergeStarted - countStarted) + " ms");
+
+        if (!options.flag("keep")) {
+            for (Shard shard : shards) {
+                Files.deleteIfExists(coordinator.manifest(shard));
+                Files.deleteIfExists(coordinator.partial(shard));
+                Files.deleteIfExists(coordinator.logFile(shard));
+            }
+        }
+        System.out.println("------");
+        printReport(merged.top(top), start);
+    }
+
+    /**
+     * Runs one worker of {@code shard} mode: counts the shard described by {@code --manifest}
+     * and writes its partial index to {@code --output}.
+     *
+     * @param options the command line options
+     * @throws IOException if a file cannot be read or the partial index cannot be written
+     */
+    private static void countShard(Options options) throws IOException {
+        long start = System.nanoTime();
+
+        Path manifest = Paths.get(options.string("manifest", "shard.txt"));
+        Path output = Paths.get(options.string("output", "shard.widx"));
+        WordCountTable table = ShardWorker.run(manifest, output);
+        System.out.println("Counted " + table.size() + " distinct words of " + manifest + " into " + output + " in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " milliseconds");
+    }
+
+    /**
+     * Counts an unbounded input, printing a snapshot of the most frequent words on every interval.
+     * Reads standard input when the file is {@code -}; with {@code --follow} the file is tailed.
+     *
+     * @param options the command line options
+     * @param top the number of most frequent words in every snapshot
+     * @throws IOException if the input cannot be read
+     */
+    private static void countStream(Options options, int top) throws IOException {
+        long start = System.nanoTime();
+
+        StreamingWordCounter counter = new StreamingWordCounter(top, options.longValue("interval", 1000),
+                snapshot -> System.out.println("Snapshot " + snapshot.getSequence() + ": "
+                        + snapshot.getTotalWords() + " words, " + snapshot.getDistinctWords() + " distinct, top "
+                        + snapshot.getTopWords().stream()
+                        .map(word -> word.getWordContent() + "=" + word.getFrequency())
+                        .collect(Collectors.joining(", "))));
+
+        Snapshot last;
+        if (options.file().toString().equals(Options.STANDARD_INPUT)) {
+            last = counter.ingest(System.in);
+        } else if (options.flag("follow")) {
+            last = counter.follow(options.file(), options.longValue("poll", 200));
+        } else {
+            try (InputStream input = GzipInput.newInputStream(options.file())) {
+                last = counter.ingest(input);
+            }
+        }
+
+        System.out.println("------");
+        printReport(last.getTopWords(), start);
+    }
+
+    /**
+     * Follows word trends of the standard input ({@code -}) or a file: the top words of each
+     * sliding window in {@code --windows} and of exponentially decayed scores with a
+     * {@code --half-life}, printed every {@code --interval} milliseconds and at the end.
+     *
+     * @param options the command line options
+     * @param top the number of most frequent words in the final all-time report
+     * @throws IOException if the input cannot be read
+     */
+    private static void countTrends(Options options, int top) throws IOException {
+        long start = System.nanoTime();
+
+        Map<String, Long> windows = new LinkedHashMap<>();
+        for (String window : options.string("windows", "1m,1h,24h").split(",")) {
+            windows.put(window, Options.parseMillis(window));
+        }
+        TrendTracker tracker = new TrendTracker(windows, options.integer("buckets", 60),
+                options.millis("half-life", "5m"), System::currentTimeMillis);
+        int k = options.integer("k", 5);
+
+        ScheduledExecutorService printer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trend-printer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = options.longValue("interval", 1000);
+        printer.scheduleWithFixedDelay(() -> printTrends(tracker, k), interval, interval, TimeUnit.MILLISECONDS);
+
+        boolean standardInput = options.file().toString().equals(Options.STANDARD_INPUT);
+        try (InputStream input = standardInput ? System.in : GzipInput.newInputStream(options.file())) {
+            ReadableByteChannel channel = Channels.newChannel(input);
+            IncrementalTokenizer tokenizer = new IncrementalTokenizer(tracker);
+            while (tokenizer.read(channel) >= 0) {
+                tracker.advance();
+            }
+            tokenizer.finish();
+            tracker.advance();
+        } finally {
+            printer.shutdownNow();
+        }
+
+        printTrends(tracker, k);
+        System.out.println("------");
+        printReport(tracker.topAllTime(top), start);
+    }
+
+    private static void printTrends(TrendTracker tracker, int k) {
+        for (String window : tracker.windowNames()) {
+            System.out.println("Last " + window + ": " + tracker.top(window, k).stream()
+                    .map(word -> word.getWordContent() + "=" + word.getFrequency())
+                    .collect(Collectors.joining(", ")));
+        }
+        System.out.println("Decayed: " + tracker.topDecayed(k).stream()
+                .map(word -> word.getWordContent() + "=" + String.format("%.1f", word.getScore()))
+                .collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * Counts every file of the given files and directories in a dictionary kept off the heap,
+     * in direct memory or, with {@code --dictionary=file}, in a file that later runs keep
+     * adding to. Prints the collections that happened while counting.
+     *
+     * @param options the command line options
+     * @param top the number of most frequent words to print
+     * @throws IOException if a file cannot be read or the dictionary cannot be written
+     */
+    private static void countOffHeap(Options options, int top) throws IOException {
+        long start = System.nanoTime();
+
+        String dictionary = options.string("dictionary", null);
+        try (GcMonitor gc = new GcMonitor();
+             OffHeapWordTable table = dictionary == null ? OffHeapWordTable.inMemory()
+                     : OffHeapWordTable.open(Paths.get(dictionary))) {
+            for (Path file : WordCountPipeline.expand(options.files())) {
+                ByteTokenizer.tokenize(file, table);
+            }
+            printReport(table.top(top), start);
+
+            System.out.println("------");
+            System.out.println("Off-heap dictionary: " + table.size() + " words, " + table.totalCount() + " counted, "
+                    + table.usedOffHeapBytes() + " of " + table.offHeapBytes() + " bytes used off the heap, "
+                    + table.heapBytes() + " bytes of index on the heap");
+            System.out.println("GC: " + gc.getCollections() + " collection(s), " + gc.getPauseMillis()
+                    + " ms paused");
+        }
+    }
+
+    /**
+     * Counts every file of the given files and directories within a memory budget
+     * ({@code --budget-mb}), spilling sorted runs to disk ({@code --spill-dir}) and merging
+     * them at the end.
+     *
+     * @param options the command line options
+     * @param top the number of most frequent words to print
+     * @throws IOException if a file cannot be read or a run cannot be written
+     */
+    private static void countSpilling(Options options, int top) throws IOException {
+        long start = System.nanoTime();
+
+        long budget = options.longValue("budget-mb", 64) << 20;
+        Path spillDirectory = Paths.get(options.string("spill-dir", System.getProperty("java.io.tmpdir")));
+        String indexFile = options.string("save-index", null);
+
+        TopWords topWords = new TopWords(top);
+        long[] distinct = new long[1];
+        try (SpillingWordCounter counter = new SpillingWordCounter(budget, spillDirectory);
+             WordIndexWriter index = indexFile == null ? null : new WordIndexWriter(Paths.get(indexFile))) {
+            for (Path file : WordCountPipeline.expand(options.files())) {
+                ByteTokenizer.tokenize(file, counter);
+            }
+            counter.finish((word, offset, length, count) -> {
+                topWords.offer(word, offset, length, count);
+                distinct[0]++;
+                if (index != null) {
+                    index.add(word, offset, length, count);
+                }
+            });
+
+            printReport(topWords.words(), start);
+            System.out.println("------");
+            System.out.println("Distinct words: " + distinct[0] + ", spilled " + counter.spills() + " run(s) of "
+                    + counter.spilledBytes() + " bytes in total, merged in " + counter.mergePasses() + " pass(es)");
+        }
+        if (indexFile != null) {
+            System.out.println("Saved index of " + distinct[0] + " words to " + indexFile);
+        }
+    }
+
+    /**
+     * Counts the n-grams of the file ({@code --n}, bigrams by default) and prints the most
+     * frequent ones in the usual report.
+     *
+     * @param options the command line options
+     * @param top the number of most frequent n-grams to print
+     * @throws IOException if the file cannot be read
+     */
+    private static void countNGrams(Options options, int top) throws IOException {
+        long start = System.nanoTime();
+
+        NGramCounter counter = new NGramCounter(options.integer("n", 2));
+        ByteTokenizer.tokenize(options.file(), counter);
+        printReport(counter.top(top), start);
+
+        if (options.flag("footprint")) {
+            System.out.println("------");
+            System.out.println(counter.footprint());
+        }
+    }
+
+    /**
+     * Estimates the most frequent words in fixed memory with a Count-Min Sketch and a
+     * Space-Saving summary, printing the bounds of every count and of the whole estimate.
+     *
+     * @param options the command line options
+     * @param top the number of most frequent words to print
+     * @throws IOException if the file cannot be read
+     */
+    private static void countApproximate(Options options, int top) throws IOException {
+        long start = System.nanoTime();
+
+        ApproximateWordCounter counter = new ApproximateWordCounter(options.integer("width", 1 << 16),
+                options.integer("depth", 4), options.integer("k", 1000));
+        ByteTokenizer.tokenize(options.file(), counter);
+
+        System.out.println("Words and their frequency:\n");
+        counter.top(top).forEach(System.out::println);
+        System.out.println("------");
+        System.out.println(counter.describe());
+
+        System.out.println("------");
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Execution duration of app is " + millis + " milliseconds");
+    }
+
+    /**
+     * Estimates the number of distinct words of every file of the given files and directories
+     * with HyperLogLog, then merges the estimates into one for all files. With {@code --exact}
+     * the words are also counted exactly in the same pass, to show the error of the estimates.
+     *
+     * @param options the command line options
+     * @throws IOException if a file cannot be read
+     */
+    private static void estimateDistinct(Options options) throws IOException {
+        long start = System.nanoTime();
+        int precision = options.integer("precision", 14);
+        boolean exact = options.flag("exact");
+
+        List<Path> files = WordCountPipeline.expand(options.files());
+        HyperLogLog allEstimate = new HyperLogLog(precision);
+        WordCountTable allWords = new WordCountTable();
+        for (Path file : files) {
+            HyperLogLog estimate = new HyperLogLog(precision);
+            WordCountTable words = new WordCountTable();
+            ByteTokenizer.tokenize(file, exact ? (buffer, offset, length) -> {
+                estimate.accept(buffer, offset, length);
+                words.accept(buffer, offset, length);
+            } : estimate);
+
+            System.out.println(describeDistinct(file.toString(), estimate, exact ? words.size() : -1));
+            allEstimate.merge(estimate);
+            allWords.merge(words);
+        }
+
+        System.out.println("------");
+        System.out.println(describeDistinct("All " + files.size() + " file(s)", allEstimate,
+                exact ? allWords.size() : -1));
+        System.out.printf("Standard error %.2f%% with %d registers (%d bytes)%n",
+                allEstimate.standardError() * 100, 1 << precision, allEstimate.footprintBytes());
+
+        System.out.println("------");
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Execution duration of app is " + millis + " milliseconds");
+    }
+
+    /**
+     * Describes a distinct word estimate, next to the exact count if it is known.
+     *
+     * @param name the name of the counted input
+     * @param estimate the estimate
+     * @param exactCount the exact number of distinct words, or {@code -1} if it was not counted
+     * @return a human readable line
+     */
+    private static String describeDistinct(String name, HyperLogLog estimate, int exactCount) {
+        String line = name + ": about " + estimate.estimate() + " distinct words";
+        if (exactCount < 0) {
+            return line;
+        }
+        double error = exactCount == 0 ? 0 : 100.0 * (estimate.estimate() - exactCount) / exactCount;
+        return line + String.format(" (exact %d, error %+.2f%%)", exactCount, error);
+    }
+
+    /**
+     * Prints the ranked words followed by the execution duration.
+     *
+     * @param topWords the words to print, most frequent first
+     * @param startNanos the {@link System#nanoTime()} value taken when counting started
+     */
+    static void printReport(List<Word> topWords, long startNanos) {
+        System.out.println("Words and their frequency:\n");
+        topWords.forEach(System.out::println);
+
+        System.out.println("------");
+        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+        System.out.println("Execution duration of app is " + millis + " milliseconds");
+    }
+
+    /**
+     * Counts words with the original line-by-line regular expression approach.
+     *
+     * @param file the file to count
+     * @throws IOException if the file cannot be read
+     */
+    private static void countWithRegex(Path file) throws IOException {
 
-        // Record the start time for performance measurement
-        LocalDateTime start = LocalDateTime.now();
+        // Record the start time for performance measurement; nanoTime needs none of the
+        // java.time classes and time zone data LocalDateTime.now() loads on start-up
+        long start = System.nanoTime();
 
         // Define the pattern to match words using a regular expression
         Pattern wordPattern = Pattern.compile("[A-Za-z]+");
@@ -35,7 +951,7 @@ public class Main {
         Map<String, Integer> wordFrequencies = new HashMap<>();
 
         // Open a BufferedReader to read the file line by line for efficiency
-        try (BufferedReader reader = new BufferedReader(new FileReader(FILE_PATH))) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(file.toFile()))) {
             // Read each line from the file
             String currentLine;
             while ((currentLine = reader.readLine()) != null) {
@@ -54,18 +970,19 @@ public class Main {
         // Print the top 30 most frequent words
         System.out.println("Words and their frequency:\n");
         // Convert the map entries to Word objects and sort by frequency
-        wordFrequencies.entrySet().parallelStream()
+        // A sequential stream, as starting the common fork-join pool costs more than sorting
+        wordFrequencies.entrySet().stream()
                 .map(entry -> new Word(entry.getKey(), entry.getValue()))
-                .sorted(Comparator.comparingInt(Word::getFrequency).reversed())
+                .sorted(Comparator.comparingLong(Word::getFrequency).reversed())
                 .limit(30) // Limit the sorted stream to the top 30 words
                 .forEach(System.out::println);
 
         // Record the finish time for performance measurement
-        LocalDateTime finish = LocalDateTime.now();
+        long finish = System.nanoTime();
 
         // Print the time taken to process
         System.out.println("------");
         // Calculating the duration of the execution in milliseconds
-        System.out.println("Execution duration of app is " + ChronoUnit.MILLIS.between(start, finish) + " milliseconds");
+        System.out.println("Execution duration of app is " + (finish - start) / 1_000_000 + " milliseconds");
     }
 }
@@ -0,0 +1,188 @@
+package edu.pro;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Command line options of the word counter: {@code [mode] [--name=value ...] [file ...]}.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class Options
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+final class Options {
+
+    // Mode used when no mode is given, i.e. the original regex based counting
+    static final String DEFAULT_MODE = "regex";
+
+    // File name standing for the standard input
+    static final String STANDARD_INPUT = "-";
+
+    private final String mode;
+    private final Map<String, String> values = new HashMap<>();
+    private final List<Path> files = new ArrayList<>();
+
+    private Options(String mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Parses the command line arguments.
+     *
+     * @param args the arguments passed to {@code main}
+     * @return the parsed options
+     */
+    static Options parse(String[] args) {
+        int first = args.length > 0 && !args[0].startsWith("--") ? 1 : 0;
+        Options options = new Options(first == 1 ? args[0] : DEFAULT_MODE);
+
+        for (int i = first; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("--")) {
+                // A bare "--name" is a switch and reads as "true"
+                int separator = arg.indexOf('=');
+                if (separator < 0) {
+                    options.values.put(arg.substring(2), "true");
+                } else {
+                    options.values.put(arg.substring(2, separator), arg.substring(separator + 1));
+                }
+            } else {
+                options.files.add(Paths.get(arg));
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Gets the selected mode.
+     *
+     * @return the mode name
+     */
+    String mode() {
+        return mode;
+    }
+
+    /**
+     * Gets the first input file, falling back to {@link Main#FILE_PATH}.
+     *
+     * @return the input file
+     */
+    Path file() {
+        return files.isEmpty() ? Paths.get(Main.FILE_PATH) : files.get(0);
+    }
+
+    /**
+     * Gets every input file, falling back to {@link Main#FILE_PATH}.
+     *
+     * @return the input files
+     */
+    List<Path> files() {
+        return files.isEmpty() ? List.of(Paths.get(Main.FILE_PATH)) : files;
+    }
+
+    /**
+     * Gets a text option.
+     *
+     * @param name the option name without the leading dashes
+     * @param defaultValue the value used when the option is absent
+     * @return the option value
+     */
+    String string(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * Gets an integer option.
+     *
+     * @param name the option name without the leading dashes
+     * @param defaultValue the value used when the option is absent
+     * @return the option value
+     */
+    int integer(String name, int defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    /**
+     * Gets a long option.
+     *
+     * @param name the option name without the leading dashes
+     * @param defaultValue the value used when the option is absent
+     * @return the option value
+     */
+    long longValue(String name, long defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    /**
+     * Gets a duration option such as {@code 250ms}, {@code 30s}, {@code 5m}, {@code 1h} or
+     * {@code 7d}; a bare number is in milliseconds.
+     *
+     * @param name the option name without the leading dashes
+     * @param defaultValue the value used when the option is absent
+     * @return the option value in milliseconds
+     */
+    long millis(String name, String defaultValue) {
+        return parseMillis(values.getOrDefault(name, defaultValue));
+    }
+
+    /**
+     * Parses a duration such as {@code 250ms}, {@code 30s}, {@code 5m}, {@code 1h} or
+     * {@code 7d}; a bare number is in milliseconds.
+     *
+     * @param duration the text to parse
+     * @return the duration in milliseconds
+     * @throws IllegalArgumentException if the text is not a duration
+     */
+    static long parseMillis(String duration) {
+        Matcher matcher = DurationPattern.INSTANCE.matcher(duration.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a duration: " + duration);
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        return switch (matcher.group(2)) {
+            case "", "ms" -> amount;
+            case "s" -> TimeUnit.SECONDS.toMillis(amount);
+            case "m" -> TimeUnit.MINUTES.toMillis(amount);
+            case "h" -> TimeUnit.HOURS.toMillis(amount);
+            default -> TimeUnit.DAYS.toMillis(amount);
+        };
+    }
+
+    /**
+     * Checks whether an option was given at all, with or without a value.
+     *
+     * @param name the option name without the leading dashes
+     * @return {@code true} if the option was given
+     */
+    boolean has(String name) {
+        return values.containsKey(name);
+    }
+
+    /**
+     * Checks whether a switch is set.
+     *
+     * @param name the option name without the leading dashes
+     * @return {@code true} if the switch was given
+     */
+    boolean flag(String name) {
+        return Boolean.parseBoolean(values.get(name));
+    }
+
+    // Amount and unit of a duration option, compiled on first use only, as most runs parse no
+    // duration and the regex engine is a noticeable part of the start-up time
+    private static final class DurationPattern {
+
+        static final Pattern INSTANCE = Pattern.compile("(\\d+)(ms|s|m|h|d|)");
+    }
+}
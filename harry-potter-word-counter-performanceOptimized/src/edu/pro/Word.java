@@ -12,7 +12,7 @@ package edu.pro;
 public class Word {
     // Use a blank line after the class declaration
     private String wordContent; // The content of the word
-    private int frequency;    // The frequency of the word
+    private long frequency;   // The frequency of the word, as long as merged indexes can pass 2^31
 
     // Use @param tag for documenting parameters
     /**
@@ -21,7 +21,7 @@ public class Word {
      * @param wordContent the content of the word
      * @param frequency the frequency of the word
      */
-    public Word(String wordContent, int frequency) {
+    public Word(String wordContent, long frequency) {
         this.wordContent = wordContent;
         this.frequency = frequency;
     }
@@ -45,7 +45,7 @@ public class Word {
      *
      * @return the frequency of the word
      */
-    public int getFrequency() {
+    public long getFrequency() {
         return frequency;
     }
 
@@ -63,7 +63,7 @@ public class Word {
      *
      * @param frequency the new frequency of the word
      */
-    public void setFrequency(int frequency) {
+    public void setFrequency(long frequency) {
         this.frequency = frequency;
     }
 
@@ -0,0 +1,102 @@
+package edu.pro.approx;
+
+import edu.pro.rank.TopK;
+import edu.pro.tokenize.TokenSink;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-memory word counter for inputs whose vocabulary does not fit the heap. Every word
+ * goes to a {@link CountMinSketch}, which bounds the count of any word, and to a
+ * {@link SpaceSaving} summary, which keeps the candidates for the most frequent words.
+ * The estimate of a candidate is the smaller of the two upper bounds, and its lower bound
+ * comes from the summary.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class ApproximateWordCounter
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class ApproximateWordCounter implements TokenSink {
+
+    private final CountMinSketch sketch;
+    private final SpaceSaving summary;
+
+    /**
+     * Creates an empty counter.
+     *
+     * @param width the number of counters per sketch row
+     * @param depth the number of sketch rows
+     * @param capacity the number of words the summary monitors
+     */
+    public ApproximateWordCounter(int width, int depth, int capacity) {
+        this.sketch = new CountMinSketch(width, depth);
+        this.summary = new SpaceSaving(capacity);
+    }
+
+    @Override
+    public void accept(byte[] buffer, int offset, int length) {
+        long hash = Hashing.hash64(buffer, offset, length);
+        sketch.add(hash);
+        summary.offer(buffer, offset, length, hash);
+    }
+
+    /**
+     * Selects the words with the highest estimates, ties broken alphabetically.
+     *
+     * @param k the maximum number of words to return
+     * @return the selected words, highest estimate first
+     */
+    public List<HeavyHitter> top(int k) {
+        TopK topK = new TopK(k, summary::compareWords);
+        for (int slot = 0; slot < summary.size(); slot++) {
+            topK.offer(slot, estimate(slot));
+        }
+
+        List<HeavyHitter> words = new ArrayList<>(topK.size());
+        for (int slot : topK.ids()) {
+            words.add(new HeavyHitter(summary.word(slot), estimate(slot),
+                    summary.count(slot) - summary.error(slot)));
+        }
+        return words;
+    }
+
+    /**
+     * Gets the sketch bounding the count of every word.
+     *
+     * @return the sketch
+     */
+    public CountMinSketch sketch() {
+        return sketch;
+    }
+
+    /**
+     * Gets the summary monitoring the frequent words.
+     *
+     * @return the summary
+     */
+    public SpaceSaving summary() {
+        return summary;
+    }
+
+    /**
+     * Describes the error bounds and the memory of the counter.
+     *
+     * @return a human readable report
+     */
+    public String describe() {
+        long total = sketch.total();
+        return "Words counted: " + total + "\n"
+                + "Count-Min Sketch " + sketch.width() + " x " + sketch.depth() + ": estimates exceed true counts by at most "
+                + sketch.errorBound() + String.format(" (%.2e x N) with probability %.4f%n", sketch.epsilon(), 1 - sketch.delta())
+                + "Space-Saving " + summary.capacity() + " words: every word above " + total / summary.capacity()
+                + " occurrences (N / K) is kept; unkept words occur at most " + summary.minimum() + " times\n"
+                + "Memory: " + (sketch.footprintBytes() + summary.footprintBytes()) + " bytes, independent of the input size";
+    }
+
+    private long estimate(int slot) {
+        return Math.min(summary.count(slot), sketch.estimate(summary.hash(slot)));
+    }
+}
@@ -0,0 +1,149 @@
+package edu.pro.approx;
+
+import edu.pro.count.Footprint;
+
+/**
+ * Count-Min Sketch: {@code depth} rows of {@code width} counters, each row indexed by its
+ * own hash of the word. The estimate of a word is the smallest of its counters, so it never
+ * undercounts, and with probability {@code 1 - delta} it overcounts by at most
+ * {@code epsilon * N}, where {@code epsilon = e / width}, {@code delta = e^-depth} and
+ * {@code N} is the number of words added.
+ *
+ * <p>Updates are conservative: only the counters holding the current minimum are
+ * incremented, which keeps the same guarantee with much smaller overestimates.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class CountMinSketch
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final int mask;
+
+    // Row r occupies counters[r * width, (r + 1) * width)
+    private final long[] counters;
+    private long total;
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param width the number of counters per row, rounded up to a power of two
+     * @param depth the number of rows
+     */
+    public CountMinSketch(int width, int depth) {
+        // At most 2^28 counters, 2 GB of heap
+        if (width < 1 || depth < 1 || (long) width * depth > 1 << 28) {
+            throw new IllegalArgumentException("Invalid sketch size: width " + width + ", depth " + depth);
+        }
+        this.width = Integer.highestOneBit(width) == width ? width : Integer.highestOneBit(width) << 1;
+        this.depth = depth;
+        this.mask = this.width - 1;
+        this.counters = new long[this.width * depth];
+    }
+
+    /**
+     * Adds one occurrence of a word.
+     *
+     * @param hash the {@link Hashing#hash64 hash} of the word
+     * @return the estimate of the word after the update
+     */
+    public long add(long hash) {
+        long minimum = estimate(hash);
+        for (int row = 0; row < depth; row++) {
+            int index = index(hash, row);
+            if (counters[index] == minimum) {
+                counters[index]++;
+            }
+        }
+        total++;
+        return minimum + 1;
+    }
+
+    /**
+     * Estimates the number of occurrences of a word.
+     *
+     * @param hash the {@link Hashing#hash64 hash} of the word
+     * @return an upper bound of the count, within {@code epsilon * N} with probability {@code 1 - delta}
+     */
+    public long estimate(long hash) {
+        long minimum = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            minimum = Math.min(minimum, counters[index(hash, row)]);
+        }
+        return minimum;
+    }
+
+    /**
+     * Gets the number of counters per row.
+     *
+     * @return the width
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return the depth
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Gets the number of words added.
+     *
+     * @return N
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * Gets the relative error bound.
+     *
+     * @return {@code e / width}
+     */
+    public double epsilon() {
+        return Math.E / width;
+    }
+
+    /**
+     * Gets the probability that an estimate exceeds the error bound.
+     *
+     * @return {@code e^-depth}
+     */
+    public double delta() {
+        return Math.exp(-depth);
+    }
+
+    /**
+     * Gets the largest overcount expected with probability {@code 1 - delta}.
+     *
+     * @return {@code epsilon * N}, rounded up
+     */
+    public long errorBound() {
+        return (long) Math.ceil(epsilon() * total);
+    }
+
+    /**
+     * Estimates the heap used by the sketch.
+     *
+     * @return the estimated size in bytes
+     */
+    public long footprintBytes() {
+        return Footprint.array(counters.length, 8);
+    }
+
+    // Row r uses h1 + r * h2, which is as good as independent hash functions for this purpose
+    private int index(long hash, int row) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return row * width + ((h1 + row * h2) & mask);
+    }
+}
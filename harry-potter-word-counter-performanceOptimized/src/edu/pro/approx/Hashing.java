@@ -0,0 +1,43 @@
+package edu.pro.approx;
+
+/**
+ * 64-bit hash of a byte slice for the probabilistic structures, which need well mixed bits
+ * in the whole long rather than the 32-bit bucket hash of the counting table.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class Hashing
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class Hashing {
+
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private Hashing() {
+    }
+
+    /**
+     * Hashes the bytes of a slice with FNV-1a, followed by the MurmurHash3 finalizer so that
+     * every output bit depends on every input byte.
+     *
+     * @param buffer the buffer holding the bytes
+     * @param offset the index of the first byte
+     * @param length the number of bytes
+     * @return the hash
+     */
+    public static long hash64(byte[] buffer, int offset, int length) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = offset; i < offset + length; i++) {
+            hash ^= buffer[i] & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB93FE53A3EB9L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,70 @@
+package edu.pro.approx;
+
+/**
+ * Approximate count of a frequent word, with the bounds its true count is known to lie in.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class HeavyHitter
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class HeavyHitter {
+
+    private final String wordContent;
+    private final long estimate;
+    private final long lowerBound;
+
+    /**
+     * Constructs a HeavyHitter.
+     *
+     * @param wordContent the content of the word
+     * @param estimate the estimated count, never below the true count
+     * @param lowerBound a count the true count is guaranteed to reach
+     */
+    public HeavyHitter(String wordContent, long estimate, long lowerBound) {
+        this.wordContent = wordContent;
+        this.estimate = estimate;
+        this.lowerBound = lowerBound;
+    }
+
+    /**
+     * Gets the content of the word.
+     *
+     * @return the content of the word
+     */
+    public String getWordContent() {
+        return wordContent;
+    }
+
+    /**
+     * Gets the estimated count, which is also the upper bound of the true count.
+     *
+     * @return the estimate
+     */
+    public long getEstimate() {
+        return estimate;
+    }
+
+    /**
+     * Gets the guaranteed lower bound of the true count.
+     *
+     * @return the lower bound
+     */
+    public long getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * Provides a string representation of the HeavyHitter object.
+     *
+     * @return a string representation of the HeavyHitter object
+     */
+    @Override
+    public String toString() {
+        return "Word{" +
+                "content='" + wordContent + '\'' +
+                ", frequency=" + estimate +
+                "} between " + lowerBound + " and " + estimate;
+    }
+}
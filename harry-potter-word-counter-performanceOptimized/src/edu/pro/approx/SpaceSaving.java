@@ -0,0 +1,268 @@
+package edu.pro.approx;
+
+import edu.pro.count.Footprint;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Space-Saving summary monitoring at most K words. A monitored word counts its occurrences.
+ * An unmonitored word replaces the word with the smallest count {@code min}, starting at
+ * {@code min + 1} with an error of {@code min}, so every count is an upper bound of the true
+ * count and {@code count - error} is a lower bound. Any word occurring more than {@code N / K}
+ * times is guaranteed to be monitored.
+ *
+ * <p>The words live in slots. A min-heap of slots finds the word to replace and an
+ * open-addressing index finds the slot of a word, so every update takes O(log K) time and
+ * the summary never grows beyond K words.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class SpaceSaving
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class SpaceSaving {
+
+    // Words are kept in buffers of at least this many bytes, so replacements rarely allocate
+    private static final int MIN_WORD_BUFFER = 16;
+
+    private final int capacity;
+
+    // Per-slot columns
+    private final byte[][] words;
+    private final int[] lengths;
+    private final long[] hashes;
+    private final long[] counts;
+    private final long[] errors;
+    private int size;
+
+    // Min-heap of slots by count, and the position of every slot in it
+    private final int[] heap;
+    private final int[] heapIndex;
+
+    // Index holds slot + 1, zero marks an empty entry
+    private final int[] index;
+    private final int indexMask;
+
+    /**
+     * Creates an empty summary.
+     *
+     * @param capacity the number of words to monitor, K
+     */
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.words = new byte[capacity][];
+        this.lengths = new int[capacity];
+        this.hashes = new long[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.heap = new int[capacity];
+        this.heapIndex = new int[capacity];
+        // Keep the index at most one quarter full
+        this.index = new int[Integer.highestOneBit(capacity) << 3];
+        this.indexMask = index.length - 1;
+    }
+
+    /**
+     * Counts one occurrence of a word.
+     *
+     * @param buffer the buffer holding the word
+     * @param offset the index of the first byte of the word
+     * @param length the number of bytes in the word
+     * @param hash the {@link Hashing#hash64 hash} of the word
+     */
+    public void offer(byte[] buffer, int offset, int length, long hash) {
+        int position = find(buffer, offset, length, hash);
+        int slot = index[position] - 1;
+        if (slot >= 0) {
+            counts[slot]++;
+            siftDown(heapIndex[slot]);
+            return;
+        }
+
+        long minimum = 0;
+        if (size < capacity) {
+            slot = size++;
+            heap[slot] = slot;
+            heapIndex[slot] = slot;
+        } else {
+            // Replace the word with the smallest count
+            slot = heap[0];
+            minimum = counts[slot];
+            remove(slot);
+            position = find(buffer, offset, length, hash);
+        }
+
+        if (words[slot] == null || words[slot].length < length) {
+            words[slot] = new byte[Math.max(length, MIN_WORD_BUFFER)];
+        }
+        System.arraycopy(buffer, offset, words[slot], 0, length);
+        lengths[slot] = length;
+        hashes[slot] = hash;
+        counts[slot] = minimum + 1;
+        errors[slot] = minimum;
+        index[position] = slot + 1;
+        // A new word has the smallest count of all, a replacing one may have to move down
+        siftUp(heapIndex[slot]);
+        siftDown(heapIndex[slot]);
+    }
+
+    /**
+     * Gets the maximum number of monitored words.
+     *
+     * @return K
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of monitored words.
+     *
+     * @return at most K
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the count of a monitored word, an upper bound of its true count.
+     *
+     * @param slot the slot of the word, below {@link #size()}
+     * @return the count
+     */
+    public long count(int slot) {
+        return counts[slot];
+    }
+
+    /**
+     * Gets the overcount a monitored word may have inherited when it replaced another word.
+     *
+     * @param slot the slot of the word, below {@link #size()}
+     * @return the error, so that {@code count - error} is a lower bound of the true count
+     */
+    public long error(int slot) {
+        return errors[slot];
+    }
+
+    /**
+     * Gets the hash a monitored word was offered with.
+     *
+     * @param slot the slot of the word, below {@link #size()}
+     * @return the hash
+     */
+    public long hash(int slot) {
+        return hashes[slot];
+    }
+
+    /**
+     * Gets the content of a monitored word as a new {@code String}.
+     *
+     * @param slot the slot of the word, below {@link #size()}
+     * @return the word
+     */
+    public String word(int slot) {
+        return new String(words[slot], 0, lengths[slot], StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Compares two monitored words by their bytes, which is alphabetical order for ASCII words.
+     *
+     * @param slot the slot of the first word
+     * @param otherSlot the slot of the second word
+     * @return a negative number, zero or a positive number as the first word sorts before, equal to or after the second
+     */
+    public int compareWords(int slot, int otherSlot) {
+        return Arrays.compareUnsigned(words[slot], 0, lengths[slot], words[otherSlot], 0, lengths[otherSlot]);
+    }
+
+    /**
+     * Gets the smallest monitored count. Every unmonitored word occurred at most this often.
+     *
+     * @return the smallest count, or zero while fewer than K words are monitored
+     */
+    public long minimum() {
+        return size < capacity ? 0 : counts[heap[0]];
+    }
+
+    /**
+     * Estimates the heap used by the summary, including the word buffers.
+     *
+     * @return the estimated size in bytes
+     */
+    public long footprintBytes() {
+        long bytes = Footprint.array(capacity, 4) * 4 + Footprint.array(capacity, 8) * 3
+                + Footprint.array(index.length, 4);
+        for (int slot = 0; slot < size; slot++) {
+            bytes += Footprint.array(words[slot].length, 1);
+        }
+        return bytes;
+    }
+
+    // Finds the index entry of a word, or the empty entry where it would be inserted
+    private int find(byte[] buffer, int offset, int length, long hash) {
+        for (int position = (int) hash & indexMask; ; position = (position + 1) & indexMask) {
+            int slot = index[position] - 1;
+            if (slot < 0 || (hashes[slot] == hash && Arrays.equals(words[slot], 0, lengths[slot],
+                    buffer, offset, offset + length))) {
+                return position;
+            }
+        }
+    }
+
+    // Removes a slot from the index, shifting later entries of its probe sequence back
+    private void remove(int slot) {
+        int position = find(words[slot], 0, lengths[slot], hashes[slot]);
+        index[position] = 0;
+        for (int next = (position + 1) & indexMask; index[next] != 0; next = (next + 1) & indexMask) {
+            int other = index[next] - 1;
+            int home = (int) hashes[other] & indexMask;
+            // Move the entry into the gap unless its home lies cyclically between the gap and it
+            if (((next - home) & indexMask) >= ((next - position) & indexMask)) {
+                index[position] = index[next];
+                index[next] = 0;
+                position = next;
+            }
+        }
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[heap[position]]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+                child++;
+            }
+            if (counts[heap[child]] >= counts[heap[position]]) {
+                return;
+            }
+            swap(position, child);
+            position = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int slot = heap[i];
+        heap[i] = heap[j];
+        heap[j] = slot;
+        heapIndex[heap[i]] = i;
+        heapIndex[heap[j]] = j;
+    }
+}
@@ -0,0 +1,258 @@
+package edu.pro.count;
+
+import edu.pro.Word;
+import edu.pro.rank.TopK;
+import edu.pro.tokenize.TokenSink;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Word count shared by many producer threads. The words are spread by hash over independent
+ * stripes, each a {@link WordCountTable} behind its own lock, so threads adding different
+ * words rarely meet.
+ *
+ * <p>Word frequencies follow Zipf's law: a handful of words such as "the" make up a large
+ * part of every text, and their stripes would be contended whatever the stripe count. A
+ * {@link Producer} therefore pre-counts its words in a small private table and folds it into
+ * the stripes now and then, taking each stripe lock once for all of its words. A frequent
+ * word then costs one lock per fold instead of one per occurrence.
+ *
+ * <p>{@link #snapshot()} takes every stripe lock in a fixed order before copying, so it sees
+ * the stripes at one instant. It contains the counts folded so far; the counts still held by
+ * producers are added when they flush.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class ConcurrentWordCountTable
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class ConcurrentWordCountTable implements TokenSink {
+
+    // Distinct words a producer collects before folding them into the stripes
+    private static final int PRODUCER_WORDS = 4096;
+
+    // Words a producer counts before folding at the latest, so counts never wait long to be seen
+    private static final int PRODUCER_TOKENS = 1 << 20;
+
+    private final WordCountTable[] stripes;
+    private final ReentrantLock[] locks;
+
+    // The stripe is chosen by the top bits of the hash, because the tables probe with the low ones
+    private final int stripeShift;
+
+    /**
+     * Creates a table with four stripes per available processor.
+     */
+    public ConcurrentWordCountTable() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * Creates a table with the given number of stripes.
+     *
+     * @param stripes the number of stripes, rounded up to a power of two
+     */
+    public ConcurrentWordCountTable(int stripes) {
+        if (stripes < 1 || stripes > 1 << 16) {
+            throw new IllegalArgumentException("Stripes must be between 1 and 65536: " + stripes);
+        }
+        int count = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new WordCountTable[count];
+        this.locks = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new WordCountTable();
+            this.locks[i] = new ReentrantLock();
+        }
+        this.stripeShift = 32 - Integer.numberOfTrailingZeros(count);
+    }
+
+    /**
+     * Adds one occurrence of the word, taking the lock of its stripe. Threads counting many
+     * words should use a {@link #producer()} instead.
+     *
+     * @param buffer the buffer holding the word
+     * @param offset the index of the first byte of the word
+     * @param length the number of bytes in the word
+     */
+    @Override
+    public void accept(byte[] buffer, int offset, int length) {
+        add(buffer, offset, length, 1);
+    }
+
+    /**
+     * Adds to the count of the word, taking the lock of its stripe.
+     *
+     * @param buffer the buffer holding the word
+     * @param offset the index of the first byte of the word
+     * @param length the number of bytes in the word
+     * @param delta the amount to add to the count
+     */
+    public void add(byte[] buffer, int offset, int length, int delta) {
+        int stripe = stripe(SlotHash.of(buffer, offset, length));
+        ReentrantLock lock = locks[stripe];
+        lock.lock();
+        try {
+            stripes[stripe].add(buffer, offset, length, delta);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Creates a sink for one producer thread. The sink is not thread-safe itself, and its
+     * counts reach this table when it folds them or is flushed.
+     *
+     * @return a new producer
+     */
+    public Producer producer() {
+        return new Producer();
+    }
+
+    /**
+     * Gets the number of stripes.
+     *
+     * @return the number of stripes
+     */
+    public int stripes() {
+        return stripes.length;
+    }
+
+    /**
+     * Copies the counts of every stripe, taken at a single instant, into one table.
+     * Producers are blocked for the duration of the copy.
+     *
+     * @return a new table holding the counts folded so far
+     */
+    public WordCountTable snapshot() {
+        WordCountTable copy = new WordCountTable();
+        // Locks are always taken in stripe order, so two snapshots cannot deadlock
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try {
+            for (WordCountTable stripe : stripes) {
+                copy.merge(stripe);
+            }
+        } finally {
+            for (ReentrantLock lock : locks) {
+                lock.unlock();
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Selects the most frequent words of a {@link #snapshot()}, ties broken alphabetically.
+     *
+     * @param k the maximum number of words to return
+     * @return the selected words, most frequent first
+     */
+    public List<Word> top(int k) {
+        return TopK.words(snapshot(), k);
+    }
+
+    /**
+     * Estimates the heap used by the stripes.
+     *
+     * @return the estimated size in bytes
+     */
+    public long footprintBytes() {
+        long bytes = Footprint.array(stripes.length, 4) * 2;
+        for (int i = 0; i < stripes.length; i++) {
+            locks[i].lock();
+            try {
+                bytes += stripes[i].footprintBytes();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return bytes;
+    }
+
+    private int stripe(int hash) {
+        // A shift by 32 is a shift by 0 in Java, so a single stripe is handled on long bits
+        return (int) ((hash & 0xFFFFFFFFL) >>> stripeShift);
+    }
+
+    /**
+     * Counting sink of one producer thread. Words are counted locally and folded into the
+     * stripes when the local table reaches {@value #PRODUCER_WORDS} distinct words or
+     * {@value #PRODUCER_TOKENS} words, and on {@link #flush()}.
+     */
+    public final class Producer implements TokenSink {
+
+        private final WordCountTable local = new WordCountTable();
+        private int tokens;
+
+        // Local ids grouped by stripe for a fold, and where each stripe's group starts
+        private int[] stripeOf = new int[PRODUCER_WORDS];
+        private int[] order = new int[PRODUCER_WORDS];
+        private final int[] groupStart = new int[stripes.length + 1];
+
+        private Producer() {
+        }
+
+        @Override
+        public void accept(byte[] buffer, int offset, int length) {
+            local.add(buffer, offset, length, 1);
+            if (local.size() >= PRODUCER_WORDS || ++tokens >= PRODUCER_TOKENS) {
+                flush();
+            }
+        }
+
+        /**
+         * Folds the local counts into the shared stripes, taking each stripe lock once.
+         * Must be called when the producer is done, or its last counts are lost.
+         */
+        public void flush() {
+            int size = local.size();
+            if (size == 0) {
+                return;
+            }
+            if (order.length < size) {
+                stripeOf = new int[size];
+                order = new int[size];
+            }
+
+            // Counting sort of the local ids by stripe
+            Arrays.fill(groupStart, 0);
+            byte[] arena = local.arena();
+            for (int id = 0; id < size; id++) {
+                stripeOf[id] = stripe(SlotHash.of(arena, local.wordOffset(id), local.wordLength(id)));
+                groupStart[stripeOf[id] + 1]++;
+            }
+            for (int stripe = 0; stripe < stripes.length; stripe++) {
+                groupStart[stripe + 1] += groupStart[stripe];
+            }
+            int[] next = groupStart.clone();
+            for (int id = 0; id < size; id++) {
+                order[next[stripeOf[id]]++] = id;
+            }
+
+            for (int stripe = 0; stripe < stripes.length; stripe++) {
+                int from = groupStart[stripe];
+                int to = groupStart[stripe + 1];
+                if (from == to) {
+                    continue;
+                }
+                WordCountTable target = stripes[stripe];
+                ReentrantLock lock = locks[stripe];
+                lock.lock();
+                try {
+                    for (int i = from; i < to; i++) {
+                        int id = order[i];
+                        target.add(arena, local.wordOffset(id), local.wordLength(id), local.count(id));
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            local.clear();
+            tokens = 0;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package edu.pro.count;
+
+/**
+ * Rough heap size estimates for comparing counting structures. The numbers assume a 64-bit
+ * JVM with compressed references, i.e. 12-byte object headers, 16-byte array headers,
+ * 4-byte references and 8-byte alignment.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class Footprint
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class Footprint {
+
+    // Size of HashMap.Node: header, hash, key, value and next reference
+    private static final int HASH_MAP_NODE = 32;
+
+    // Size of a String object without its byte array
+    private static final int STRING = 24;
+
+    // Size of an Integer object
+    private static final int INTEGER = 16;
+
+    // Size of a Word object: header, content reference and frequency
+    private static final int WORD = 24;
+
+    private Footprint() {
+    }
+
+    /**
+     * Estimates the size of an array.
+     *
+     * @param length the number of elements
+     * @param elementSize the size of one element in bytes
+     * @return the estimated size in bytes
+     */
+    public static long array(long length, int elementSize) {
+        return align(16 + length * elementSize);
+    }
+
+    /**
+     * Estimates the size of a {@code HashMap<String, Integer>} holding the same words as the table.
+     *
+     * @param table the table holding the words
+     * @return the estimated size in bytes
+     */
+    public static long hashMap(WordCountTable table) {
+        int size = table.size();
+        long bytes = hashMapBuckets(size);
+        for (int id = 0; id < size; id++) {
+            bytes += hashMapEntry(table.wordLength(id), table.count(id));
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimates the size of one entry of a {@code HashMap<String, Integer>} holding a Latin-1 key.
+     *
+     * @param keyLength the number of characters in the key
+     * @param value the value of the entry
+     * @return the estimated size in bytes, without the bucket array
+     */
+    public static long hashMapEntry(int keyLength, int value) {
+        long bytes = HASH_MAP_NODE + STRING + array(keyLength, 1);
+        // Integer.valueOf caches the values from -128 to 127
+        if (value > 127) {
+            bytes += INTEGER;
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimates the bucket array and object of a {@code HashMap} after inserting entries.
+     *
+     * @param size the number of entries
+     * @return the estimated size in bytes, without the entries
+     */
+    public static long hashMapBuckets(int size) {
+        // HashMap resizes when it is three quarters full
+        long capacity = Integer.highestOneBit(Math.max(1, (int) (size / 0.75f)) * 2 - 1);
+        return align(48) + array(capacity, 4);
+    }
+
+    /**
+     * Estimates the size of an {@code ArrayList<Word>} holding one {@code Word} per word of the table.
+     *
+     * @param table the table holding the words
+     * @return the estimated size in bytes
+     */
+    public static long wordList(WordCountTable table) {
+        long bytes = align(24) + array(table.size(), 4);
+        for (int id = 0; id < table.size(); id++) {
+            bytes += WORD + STRING + array(table.wordLength(id), 1);
+        }
+        return bytes;
+    }
+
+    /**
+     * Describes the footprint of the table next to the {@code HashMap} it replaces, and of
+     * the compact result next to a list of {@code Word} objects.
+     *
+     * @param table the table to describe
+     * @return a human readable report
+     */
+    public static String report(WordCountTable table) {
+        int size = Math.max(1, table.size());
+        long tableBytes = table.footprintBytes();
+        long mapBytes = hashMap(table);
+        long resultBytes = WordCounts.of(table).footprintBytes();
+        long listBytes = wordList(table);
+        return "Distinct words: " + table.size() + "\n"
+                + "WordCountTable: " + tableBytes + " bytes (" + tableBytes / size + " bytes per word)\n"
+                + "HashMap<String, Integer> (estimated): " + mapBytes + " bytes ("
+                + mapBytes / size + " bytes per word)\n"
+                + "WordCounts result: " + resultBytes + " bytes (" + resultBytes / size + " bytes per word)\n"
+                + "List<Word> result (estimated): " + listBytes + " bytes (" + listBytes / size + " bytes per word)";
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,249 @@
+package edu.pro.count;
+
+import edu.pro.gzip.GzipInput;
+import edu.pro.gzip.ParallelGzipWordCounter;
+import edu.pro.metrics.ThreadAllocation;
+import edu.pro.tokenize.ByteTokenizer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Word counter that splits the file into byte ranges aligned on word boundaries, counts
+ * every range into its own local map on a {@link ForkJoinPool} and merges the partial maps.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class ParallelWordCounter
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class ParallelWordCounter {
+
+    // Ranges per worker thread, so a slow range does not leave the other threads idle
+    private static final int RANGES_PER_THREAD = 4;
+
+    // Ranges smaller than this are not worth a task of their own
+    private static final long MIN_RANGE_SIZE = 1 << 20;
+
+    private ParallelWordCounter() {
+    }
+
+    /**
+     * Counts the words of the given file in parallel. A {@code .gz} file is handed to
+     * {@link ParallelGzipWordCounter}, which splits it by gzip member instead.
+     *
+     * @param file the file to count
+     * @param parallelism the number of worker threads
+     * @return the table holding the merged frequencies
+     * @throws IOException if the file cannot be read
+     */
+    public static WordCountTable count(Path file, int parallelism) throws IOException {
+        return count(file, parallelism, new LongAdder());
+    }
+
+    /**
+     * Counts the words of the given file in parallel, adding up the bytes the worker threads
+     * allocate while counting and merging.
+     *
+     * @param file the file to count
+     * @param parallelism the number of worker threads
+     * @param allocatedBytes receives the bytes allocated by the worker threads
+     * @return the table holding the merged frequencies
+     * @throws IOException if the file cannot be read
+     */
+    public static WordCountTable count(Path file, int parallelism, LongAdder allocatedBytes) throws IOException {
+        if (GzipInput.isCompressed(file)) {
+            return ParallelGzipWordCounter.count(file, parallelism, allocatedBytes);
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<long[]> ranges = split(channel, parallelism * RANGES_PER_THREAD);
+            return pool.invoke(new CountTask(channel, ranges, 0, ranges.size(), allocatedBytes));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Counts the words of the given file in parallel into a shared table. Each range is
+     * tokenized into its own {@link ConcurrentWordCountTable.Producer}, so the table can be
+     * read while the file is being counted. A {@code .gz} file is counted by a single producer.
+     *
+     * @param file the file to count
+     * @param parallelism the number of worker threads
+     * @param table the table receiving the counts
+     * @throws IOException if the file cannot be read
+     */
+    public static void countShared(Path file, int parallelism, ConcurrentWordCountTable table) throws IOException {
+        countShared(file, parallelism, table, new LongAdder());
+    }
+
+    /**
+     * Counts the words of the given file in parallel into a shared table, adding up the bytes
+     * the producing threads allocate.
+     *
+     * @param file the file to count
+     * @param parallelism the number of worker threads
+     * @param table the table receiving the counts
+     * @param allocatedBytes receives the bytes allocated by the producing threads
+     * @throws IOException if the file cannot be read
+     */
+    public static void countShared(Path file, int parallelism, ConcurrentWordCountTable table,
+                                   LongAdder allocatedBytes) throws IOException {
+        if (GzipInput.isCompressed(file)) {
+            long allocated = ThreadAllocation.current();
+            ConcurrentWordCountTable.Producer producer = table.producer();
+            ByteTokenizer.tokenize(file, producer);
+            producer.flush();
+            allocatedBytes.add(ThreadAllocation.current() - allocated);
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (long[] range : split(channel, parallelism * RANGES_PER_THREAD)) {
+                tasks.add(() -> {
+                    long allocated = ThreadAllocation.current();
+                    ConcurrentWordCountTable.Producer producer = table.producer();
+                    ByteTokenizer.tokenize(channel, range[0], range[1], producer);
+                    producer.flush();
+                    allocatedBytes.add(ThreadAllocation.current() - allocated);
+                    return null;
+                });
+            }
+            for (Future<Void> task : pool.invokeAll(tasks)) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while counting " + file);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Splits the channel into at most {@code count} ranges whose ends never cut a word.
+     *
+     * @param channel the channel to split
+     * @param count the wanted number of ranges
+     * @return the {@code [start, end)} pairs of the ranges, in file order
+     * @throws IOException if the channel cannot be read
+     */
+    public static List<long[]> split(FileChannel channel, int count) throws IOException {
+        long size = channel.size();
+        long step = Math.max(MIN_RANGE_SIZE, size / count + 1);
+
+        List<long[]> ranges = new ArrayList<>();
+        long start = 0;
+        while (start < size) {
+            long end = alignToWordBoundary(channel, Math.min(size, start + step), size);
+            ranges.add(new long[]{start, end});
+            start = end;
+        }
+        return ranges;
+    }
+
+    /**
+     * Moves the position forward until it no longer falls inside a word.
+     *
+     * @param channel the channel to inspect
+     * @param position the candidate boundary
+     * @param size the size of the channel
+     * @return the first position at or after the candidate that does not split a word
+     * @throws IOException if the channel cannot be read
+     */
+    static long alignToWordBoundary(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        long boundary = position;
+        while (boundary > 0 && boundary < size) {
+            buffer.clear();
+            int read = channel.read(buffer, boundary - 1);
+            if (read < 2) {
+                return size;
+            }
+            // A boundary is valid unless there is a letter on both of its sides
+            for (int i = 1; i < read; i++) {
+                if (!ByteTokenizer.isLetter(buffer.get(i - 1)) || !ByteTokenizer.isLetter(buffer.get(i))) {
+                    return boundary + i - 1;
+                }
+            }
+            boundary += read - 1;
+        }
+        return Math.min(boundary, size);
+    }
+
+    /**
+     * Task counting a slice of the range list, splitting it in halves until a single range is left.
+     */
+    private static final class CountTask extends RecursiveTask<WordCountTable> {
+
+        private static final long serialVersionUID = 1L;
+
+        // Tasks are never serialized, so the channel, the ranges and the counter are left out of their serial form
+        private final transient FileChannel channel;
+        private final transient List<long[]> ranges;
+        private final transient LongAdder allocatedBytes;
+        private final int from;
+        private final int to;
+
+        CountTask(FileChannel channel, List<long[]> ranges, int from, int to, LongAdder allocatedBytes) {
+            this.channel = channel;
+            this.ranges = ranges;
+            this.from = from;
+            this.to = to;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        @Override
+        protected WordCountTable compute() {
+            // Only the work done on this thread is measured, a forked half reports its own
+            if (to - from <= 1) {
+                long allocated = ThreadAllocation.current();
+                WordCountTable table = new WordCountTable();
+                if (from < to) {
+                    long[] range = ranges.get(from);
+                    try {
+                        ByteTokenizer.tokenize(channel, range[0], range[1], table);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                allocatedBytes.add(ThreadAllocation.current() - allocated);
+                return table;
+            }
+
+            int middle = (from + to) >>> 1;
+            CountTask right = new CountTask(channel, ranges, middle, to, allocatedBytes);
+            right.fork();
+            WordCountTable left = new CountTask(channel, ranges, from, middle, allocatedBytes).compute();
+            WordCountTable other = right.join();
+            long allocated = ThreadAllocation.current();
+            left.merge(other);
+            allocatedBytes.add(ThreadAllocation.current() - allocated);
+            return left;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package edu.pro.count;
+
+/**
+ * Hash used by the open-addressing tables to pick a slot: a polynomial hash of the key,
+ * spread so that its high bits reach the low ones, which are the only ones a slot index
+ * uses. {@link WordCountTable}, {@link ConcurrentWordCountTable} and the off-heap and n-gram
+ * tables all hash through here.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class SlotHash
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class SlotHash {
+
+    private SlotHash() {
+    }
+
+    /**
+     * Hashes a byte slice.
+     *
+     * @param buffer the buffer holding the bytes
+     * @param offset the index of the first byte
+     * @param length the number of bytes
+     * @return the spread hash
+     */
+    public static int of(byte[] buffer, int offset, int length) {
+        int h = 1;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + buffer[i];
+        }
+        return spread(h);
+    }
+
+    /**
+     * Spreads the high bits of a hash down to the low ones.
+     *
+     * @param h the hash, e.g. a polynomial hash of a key
+     * @return the spread hash
+     */
+    public static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,261 @@
+package edu.pro.count;
+
+import edu.pro.Word;
+import edu.pro.tokenize.TokenSink;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Open-addressing hash table counting words without boxing. The bytes of every distinct
+ * word are appended to one shared arena, and each word gets a dense id in the order it
+ * was first seen. Lookups take a token slice directly, so counting a known word allocates
+ * nothing.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class WordCountTable
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class WordCountTable implements TokenSink, Iterable<Word> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Slots hold id + 1 so that zero can mark an empty slot
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+    // Per-id columns: hash, count and start of the word in the arena
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int[] wordOffsets = new int[INITIAL_CAPACITY + 1];
+
+    private byte[] arena = new byte[INITIAL_CAPACITY * 8];
+    private int size;
+
+    @Override
+    public void accept(byte[] buffer, int offset, int length) {
+        add(buffer, offset, length, 1);
+    }
+
+    /**
+     * Adds to the count of the word held in the slice, inserting the word if it is new.
+     *
+     * @param buffer the buffer holding the word
+     * @param offset the index of the first byte of the word
+     * @param length the number of bytes in the word
+     * @param delta the amount to add to the count
+     * @return the id of the word
+     */
+    public int add(byte[] buffer, int offset, int length, int delta) {
+        int hash = SlotHash.of(buffer, offset, length);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                id = insert(buffer, offset, length, hash, delta);
+                slots[slot] = id + 1;
+                // Keep the load factor at most one half, so probe sequences stay short
+                if (size * 2 > slots.length) {
+                    rehash(slots.length * 2);
+                }
+                return id;
+            }
+            if (hashes[id] == hash && matches(id, buffer, offset, length)) {
+                counts[id] += delta;
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Finds the id of the word held in the slice.
+     *
+     * @param buffer the buffer holding the word
+     * @param offset the index of the first byte of the word
+     * @param length the number of bytes in the word
+     * @return the id of the word, or {@code -1} if it was never counted
+     */
+    public int find(byte[] buffer, int offset, int length) {
+        int hash = SlotHash.of(buffer, offset, length);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                return -1;
+            }
+            if (hashes[id] == hash && matches(id, buffer, offset, length)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Adds every count of another table to this one.
+     *
+     * @param other the table to merge
+     */
+    public void merge(WordCountTable other) {
+        for (int id = 0; id < other.size; id++) {
+            add(other.arena, other.wordOffsets[id], other.wordLength(id), other.counts[id]);
+        }
+    }
+
+    /**
+     * Removes every word while keeping the allocated capacity, so the table can be reused.
+     */
+    public void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    /**
+     * Gets the number of distinct words.
+     *
+     * @return the number of distinct words
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the count of a word.
+     *
+     * @param id the id of the word
+     * @return the number of times the word was counted
+     */
+    public int count(int id) {
+        return counts[id];
+    }
+
+    /**
+     * Gets the content of a word as a new {@code String}.
+     *
+     * @param id the id of the word
+     * @return the word
+     */
+    public String word(int id) {
+        return new String(arena, wordOffsets[id], wordLength(id), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares two words by their bytes, which is alphabetical order for ASCII words and code
+     * point order for UTF-8 words.
+     *
+     * @param id the id of the first word
+     * @param otherId the id of the second word
+     * @return a negative number, zero or a positive number as the first word sorts before, equal to or after the second
+     */
+    public int compareWords(int id, int otherId) {
+        return Arrays.compareUnsigned(arena, wordOffsets[id], wordOffsets[id + 1],
+                arena, wordOffsets[otherId], wordOffsets[otherId + 1]);
+    }
+
+    /**
+     * Gets the shared arena holding the bytes of every word. It must not be modified.
+     *
+     * @return the arena
+     */
+    public byte[] arena() {
+        return arena;
+    }
+
+    /**
+     * Gets the position of a word in the arena.
+     *
+     * @param id the id of the word
+     * @return the index of the first byte of the word in {@link #arena()}
+     */
+    public int wordOffset(int id) {
+        return wordOffsets[id];
+    }
+
+    /**
+     * Gets the number of bytes in a word.
+     *
+     * @param id the id of the word
+     * @return the length of the word
+     */
+    public int wordLength(int id) {
+        return wordOffsets[id + 1] - wordOffsets[id];
+    }
+
+    /**
+     * Estimates the heap used by the table, including the spare capacity of its arrays.
+     *
+     * @return the estimated size in bytes
+     */
+    public long footprintBytes() {
+        return Footprint.array(arena.length, 1) + Footprint.array(slots.length, 4)
+                + Footprint.array(hashes.length, 4) + Footprint.array(counts.length, 4)
+                + Footprint.array(wordOffsets.length, 4);
+    }
+
+    /**
+     * Iterates over the counted words in id order, creating each {@link Word} on demand.
+     *
+     * @return an iterator over the counted words
+     */
+    @Override
+    public Iterator<Word> iterator() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Word next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                Word word = new Word(word(next), counts[next]);
+                next++;
+                return word;
+            }
+        };
+    }
+
+    private int insert(byte[] buffer, int offset, int length, int hash, int count) {
+        if (size + 1 == wordOffsets.length) {
+            int capacity = hashes.length * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            wordOffsets = Arrays.copyOf(wordOffsets, capacity + 1);
+        }
+        int start = wordOffsets[size];
+        if (start + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, start + length));
+        }
+        System.arraycopy(buffer, offset, arena, start, length);
+
+        int id = size++;
+        hashes[id] = hash;
+        counts[id] = count;
+        wordOffsets[size] = start + length;
+        return id;
+    }
+
+    private void rehash(int capacity) {
+        int[] rehashed = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (rehashed[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            rehashed[slot] = id + 1;
+        }
+        slots = rehashed;
+    }
+
+    private boolean matches(int id, byte[] buffer, int offset, int length) {
+        int start = wordOffsets[id];
+        return wordOffsets[id + 1] - start == length
+                && Arrays.equals(arena, start, start + length, buffer, offset, offset + length);
+    }
+}
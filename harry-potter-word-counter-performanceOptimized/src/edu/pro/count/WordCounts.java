@@ -0,0 +1,260 @@
+package edu.pro.count;
+
+import edu.pro.Word;
+import edu.pro.rank.IdSorter;
+import edu.pro.rank.TopK;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Compact, struct-of-arrays result of a word count. Entry {@code i} is described by
+ * {@code frequency[i]} and by the characters {@code [wordOffset[i], wordOffset[i + 1])} of
+ * one shared char arena, so a result costs about 8 bytes plus the characters per word instead
+ * of a {@link Word}, a {@code String} and its array. Sorting, top-K and iteration work on the
+ * arrays; a {@link Word} is only created when an entry is asked for as one.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class WordCounts
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class WordCounts implements Iterable<Word> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] frequency;
+    private int[] wordOffset;
+    private char[] arena;
+    private int size;
+
+    /**
+     * Creates an empty result.
+     *
+     * @param capacity the number of words expected
+     */
+    public WordCounts(int capacity) {
+        this(capacity, Math.max(capacity, INITIAL_CAPACITY) * 8);
+    }
+
+    private WordCounts(int capacity, int arenaLength) {
+        int entries = Math.max(capacity, INITIAL_CAPACITY);
+        this.frequency = new int[entries];
+        this.wordOffset = new int[entries + 1];
+        this.arena = new char[Math.max(arenaLength, 1)];
+    }
+
+    /**
+     * Copies the words of a table into a compact result, in id order.
+     *
+     * @param table the counted words
+     * @return the result
+     */
+    public static WordCounts of(WordCountTable table) {
+        int total = table.size() == 0 ? 0 : table.wordOffset(table.size() - 1) + table.wordLength(table.size() - 1);
+        WordCounts counts = new WordCounts(table.size(), total);
+        byte[] bytes = table.arena();
+
+        // A UTF-8 word never has more chars than bytes, so the arena is large enough
+        for (int id = 0; id < table.size(); id++) {
+            int start = counts.wordOffset[id];
+            counts.frequency[id] = table.count(id);
+            counts.wordOffset[id + 1] = start + widen(bytes, table.wordOffset(id), table.wordLength(id),
+                    counts.arena, start);
+        }
+        counts.size = table.size();
+        return counts;
+    }
+
+    // Copies a UTF-8 word into the arena, widening ASCII words byte by byte
+    private static int widen(byte[] bytes, int offset, int length, char[] arena, int start) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[offset + i] < 0) {
+                String word = new String(bytes, offset, length, StandardCharsets.UTF_8);
+                word.getChars(0, word.length(), arena, start);
+                return word.length();
+            }
+            arena[start + i] = (char) bytes[offset + i];
+        }
+        return length;
+    }
+
+    /**
+     * Appends a word. The result does not check whether the word is already present.
+     *
+     * @param word the content of the word
+     * @param count the frequency of the word
+     */
+    public void add(CharSequence word, int count) {
+        if (size == frequency.length) {
+            frequency = Arrays.copyOf(frequency, size * 2);
+            wordOffset = Arrays.copyOf(wordOffset, size * 2 + 1);
+        }
+        int start = wordOffset[size];
+        int length = word.length();
+        if (start + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, start + length));
+        }
+        for (int i = 0; i < length; i++) {
+            arena[start + i] = word.charAt(i);
+        }
+        frequency[size] = count;
+        wordOffset[++size] = start + length;
+    }
+
+    /**
+     * Gets the number of words.
+     *
+     * @return the number of words
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the frequency of an entry.
+     *
+     * @param index the index of the entry
+     * @return the frequency of the word
+     */
+    public int frequency(int index) {
+        return frequency[index];
+    }
+
+    /**
+     * Gets the content of an entry as a new {@code String}.
+     *
+     * @param index the index of the entry
+     * @return the word
+     */
+    public String content(int index) {
+        return new String(arena, wordOffset[index], wordOffset[index + 1] - wordOffset[index]);
+    }
+
+    /**
+     * Creates a {@link Word} view of an entry. Later changes to the view do not affect the result.
+     *
+     * @param index the index of the entry
+     * @return a new word
+     */
+    public Word word(int index) {
+        return new Word(content(index), frequency[index]);
+    }
+
+    /**
+     * Compares the content of two entries alphabetically, without creating strings.
+     *
+     * @param index the index of the first entry
+     * @param otherIndex the index of the second entry
+     * @return a negative number, zero or a positive number as the first word sorts before, equal to or after the second
+     */
+    public int compareWords(int index, int otherIndex) {
+        return Arrays.compare(arena, wordOffset[index], wordOffset[index + 1],
+                arena, wordOffset[otherIndex], wordOffset[otherIndex + 1]);
+    }
+
+    /**
+     * Sorts the entries in place by frequency descending, ties broken alphabetically. The
+     * arena is rewritten in the new order, so it briefly needs a second copy of the arrays.
+     */
+    public void sort() {
+        int[] order = new int[size];
+        Arrays.setAll(order, index -> index);
+        IdSorter.sort(order, (index, otherIndex) -> frequency[index] != frequency[otherIndex]
+                ? Integer.compare(frequency[otherIndex], frequency[index])
+                : compareWords(index, otherIndex));
+
+        int[] sortedFrequency = new int[frequency.length];
+        int[] sortedOffset = new int[wordOffset.length];
+        char[] sortedArena = new char[arena.length];
+        for (int i = 0; i < size; i++) {
+            int index = order[i];
+            int start = wordOffset[index];
+            int length = wordOffset[index + 1] - start;
+            System.arraycopy(arena, start, sortedArena, sortedOffset[i], length);
+            sortedFrequency[i] = frequency[index];
+            sortedOffset[i + 1] = sortedOffset[i] + length;
+        }
+        frequency = sortedFrequency;
+        wordOffset = sortedOffset;
+        arena = sortedArena;
+    }
+
+    /**
+     * Selects the most frequent words, ties broken alphabetically. Only the selected entries
+     * become {@link Word} objects.
+     *
+     * @param k the maximum number of words to return
+     * @return the selected words, most frequent first
+     */
+    public List<Word> top(int k) {
+        TopK topK = new TopK(k, this::compareWords);
+        for (int index = 0; index < size; index++) {
+            topK.offer(index, frequency[index]);
+        }
+
+        List<Word> words = new ArrayList<>(topK.size());
+        for (int index : topK.ids()) {
+            words.add(word(index));
+        }
+        return words;
+    }
+
+    /**
+     * Writes every entry in the current order as a {@code word count} line, straight from
+     * the arena.
+     *
+     * @param writer the writer to write to
+     * @throws IOException if the writer fails
+     */
+    public void writeTo(Writer writer) throws IOException {
+        for (int index = 0; index < size; index++) {
+            writer.write(arena, wordOffset[index], wordOffset[index + 1] - wordOffset[index]);
+            writer.write(' ');
+            writer.write(Integer.toString(frequency[index]));
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Estimates the heap used by the result, including the spare capacity of its arrays.
+     *
+     * @return the estimated size in bytes
+     */
+    public long footprintBytes() {
+        return Footprint.array(frequency.length, 4) + Footprint.array(wordOffset.length, 4)
+                + Footprint.array(arena.length, 2);
+    }
+
+    /**
+     * Iterates over the entries in the current order, creating each {@link Word} on demand.
+     *
+     * @return an iterator over the words
+     */
+    @Override
+    public Iterator<Word> iterator() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Word next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return word(next++);
+            }
+        };
+    }
+}
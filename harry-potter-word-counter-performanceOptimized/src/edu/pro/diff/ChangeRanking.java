@@ -0,0 +1,85 @@
+package edu.pro.diff;
+
+import edu.pro.rank.TopWords;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bounded selection of the K largest changes, by the magnitude of their score. The words are
+ * ranked by a {@link TopWords} keyed by the bits of the magnitude, which for a non-negative
+ * {@code double} order the same way as the value; the counts and the signed score of a change
+ * are kept in arrays indexed by its slot. Equal magnitudes are ordered alphabetically.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class ChangeRanking
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+final class ChangeRanking {
+
+    // Capacity of new slot arrays, which then double as the selection fills
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final TopWords ranking;
+
+    // Slot contents besides the word and the magnitude
+    private long[] before;
+    private long[] after;
+    private double[] scores;
+
+    /**
+     * Creates an empty selection.
+     *
+     * @param k the maximum number of changes to keep
+     */
+    ChangeRanking(int k) {
+        this.ranking = new TopWords(k);
+        int capacity = Math.min(k, INITIAL_CAPACITY);
+        this.before = new long[capacity];
+        this.after = new long[capacity];
+        this.scores = new double[capacity];
+    }
+
+    /**
+     * Offers a change to the selection.
+     *
+     * @param word the buffer holding the word, which is copied if the change is kept
+     * @param length the number of bytes in the word
+     * @param countBefore the count of the word in the first corpus
+     * @param countAfter the count of the word in the second corpus
+     * @param score the score of the change, not zero
+     */
+    void offer(byte[] word, int length, long countBefore, long countAfter, double score) {
+        int slot = ranking.offer(word, 0, length, Double.doubleToLongBits(Math.abs(score)));
+        if (slot < 0) {
+            return;
+        }
+        if (slot == scores.length) {
+            // New slots are handed out in order, so the arrays grow one step at a time
+            int capacity = Math.max(INITIAL_CAPACITY, 2 * slot);
+            before = Arrays.copyOf(before, capacity);
+            after = Arrays.copyOf(after, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+        }
+        before[slot] = countBefore;
+        after[slot] = countAfter;
+        scores[slot] = score;
+    }
+
+    /**
+     * Gets the selected changes, largest first.
+     *
+     * @return the ranked changes
+     */
+    List<WordChange> changes() {
+        int[] slots = ranking.rankedSlots();
+        List<WordChange> changes = new ArrayList<>(slots.length);
+        for (int slot : slots) {
+            changes.add(new WordChange(ranking.word(slot), before[slot], after[slot], scores[slot]));
+        }
+        return changes;
+    }
+}
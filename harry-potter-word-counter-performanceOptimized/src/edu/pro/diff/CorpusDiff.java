@@ -0,0 +1,244 @@
+package edu.pro.diff;
+
+import edu.pro.index.IndexCursor;
+import edu.pro.index.WordIndex;
+
+import java.util.List;
+
+/**
+ * Comparison of the word counts of two corpora. The two indexes are read side by side in
+ * dictionary order, as in {@link edu.pro.index.WordIndexMerger}, so every word is visited
+ * once with its count on both sides, a missing word counting as zero. Every word is scored
+ * by each {@link Measure} and offered to a bounded selection per measure; memory use depends
+ * on the number of changes selected, not on the size of the vocabularies.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class CorpusDiff
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class CorpusDiff {
+
+    /**
+     * A way of scoring the change of a word between two corpora. Scores are positive when
+     * the word became more frequent and negative when it became less frequent; words are
+     * ranked by the magnitude of their score.
+     */
+    public enum Measure {
+
+        /**
+         * Difference of the counts, in occurrences.
+         */
+        ABSOLUTE("absolute change") {
+            @Override
+            double score(long before, long after, long totalBefore, long totalAfter) {
+                return after - before;
+            }
+        },
+
+        /**
+         * Binary logarithm of the ratio of the relative frequencies, with half an occurrence
+         * added to both counts so words present on one side only get a finite score.
+         */
+        RELATIVE("relative change, log2 ratio") {
+            @Override
+            double score(long before, long after, long totalBefore, long totalAfter) {
+                double rateBefore = (before + 0.5) / Math.max(1, totalBefore);
+                double rateAfter = (after + 0.5) / Math.max(1, totalAfter);
+                return Math.log(rateAfter / rateBefore) / LN_2;
+            }
+        },
+
+        /**
+         * Dunning's log-likelihood ratio G2 of the two counts against the counts
+         * expected if both corpora used the word at the same rate, signed by the direction of
+         * the change.
+         */
+        LOG_LIKELIHOOD("log-likelihood ratio") {
+            @Override
+            double score(long before, long after, long totalBefore, long totalAfter) {
+                double total = (double) totalBefore + totalAfter;
+                if (total == 0) {
+                    return 0;
+                }
+                double expectedBefore = totalBefore * (before + after) / total;
+                double expectedAfter = totalAfter * (before + after) / total;
+                double ratio = 2 * (term(before, expectedBefore) + term(after, expectedAfter));
+                return after > expectedAfter ? ratio : -ratio;
+            }
+
+            private double term(long observed, double expected) {
+                return observed == 0 ? 0 : observed * Math.log(observed / expected);
+            }
+        };
+
+        private static final double LN_2 = Math.log(2);
+
+        private final String label;
+
+        Measure(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Gets the description of the measure used in reports.
+         *
+         * @return the label
+         */
+        public String label() {
+            return label;
+        }
+
+        /**
+         * Scores the change of a word.
+         *
+         * @param before the count of the word in the first corpus
+         * @param after the count of the word in the second corpus
+         * @param totalBefore the number of words in the first corpus
+         * @param totalAfter the number of words in the second corpus
+         * @return the score, positive if the word became more frequent
+         */
+        abstract double score(long before, long after, long totalBefore, long totalAfter);
+    }
+
+    // Cached, as values() copies the array on every call
+    private static final Measure[] MEASURES = Measure.values();
+
+    private final long totalBefore;
+    private final long totalAfter;
+    private final ChangeRanking[] rankings = new ChangeRanking[MEASURES.length];
+    private long shared;
+    private long changed;
+    private long removed;
+    private long added;
+
+    private CorpusDiff(long totalBefore, long totalAfter, int k) {
+        this.totalBefore = totalBefore;
+        this.totalAfter = totalAfter;
+        for (Measure measure : MEASURES) {
+            rankings[measure.ordinal()] = new ChangeRanking(k);
+        }
+    }
+
+    /**
+     * Compares two word indexes in one pass.
+     *
+     * @param before the index of the first corpus
+     * @param after the index of the second corpus
+     * @param k the number of changes to select per measure
+     * @param minCount the smallest count on both sides together for a word to be ranked by
+     *                 relative change, which is unreliable for rare words
+     * @return the comparison
+     */
+    public static CorpusDiff compare(WordIndex before, WordIndex after, int k, long minCount) {
+        CorpusDiff diff = new CorpusDiff(before.totalCount(), after.totalCount(), k);
+        IndexCursor left = before.cursor();
+        IndexCursor right = after.cursor();
+        boolean hasLeft = left.next();
+        boolean hasRight = right.next();
+
+        while (hasLeft || hasRight) {
+            int order = !hasLeft ? 1 : !hasRight ? -1 : left.compareTo(right);
+            if (order < 0) {
+                diff.offer(left.word(), left.wordLength(), left.count(), 0, minCount);
+                hasLeft = left.next();
+            } else if (order > 0) {
+                diff.offer(right.word(), right.wordLength(), 0, right.count(), minCount);
+                hasRight = right.next();
+            } else {
+                diff.offer(left.word(), left.wordLength(), left.count(), right.count(), minCount);
+                hasLeft = left.next();
+                hasRight = right.next();
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Gets the largest changes by a measure.
+     *
+     * @param measure the measure to rank by
+     * @return the selected changes, largest magnitude first
+     */
+    public List<WordChange> top(Measure measure) {
+        return rankings[measure.ordinal()].changes();
+    }
+
+    /**
+     * Gets the number of words in the first corpus.
+     *
+     * @return the total count before
+     */
+    public long totalBefore() {
+        return totalBefore;
+    }
+
+    /**
+     * Gets the number of words in the second corpus.
+     *
+     * @return the total count after
+     */
+    public long totalAfter() {
+        return totalAfter;
+    }
+
+    /**
+     * Gets the number of distinct words found in both corpora.
+     *
+     * @return the number of shared words
+     */
+    public long sharedWords() {
+        return shared;
+    }
+
+    /**
+     * Gets the number of shared words whose count differs.
+     *
+     * @return the number of changed words
+     */
+    public long changedWords() {
+        return changed;
+    }
+
+    /**
+     * Gets the number of distinct words found in the first corpus only.
+     *
+     * @return the number of removed words
+     */
+    public long removedWords() {
+        return removed;
+    }
+
+    /**
+     * Gets the number of distinct words found in the second corpus only.
+     *
+     * @return the number of added words
+     */
+    public long addedWords() {
+        return added;
+    }
+
+    private void offer(byte[] word, int length, long before, long after, long minCount) {
+        if (before == 0) {
+            added++;
+        } else if (after == 0) {
+            removed++;
+        } else {
+            shared++;
+            if (before != after) {
+                changed++;
+            }
+        }
+
+        for (Measure measure : MEASURES) {
+            if (measure == Measure.RELATIVE && before + after < minCount) {
+                continue;
+            }
+            double score = measure.score(before, after, totalBefore, totalAfter);
+            if (score != 0) {
+                rankings[measure.ordinal()].offer(word, length, before, after, score);
+            }
+        }
+    }
+}
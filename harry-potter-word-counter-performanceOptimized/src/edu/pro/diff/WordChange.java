@@ -0,0 +1,84 @@
+package edu.pro.diff;
+
+/**
+ * Word with its counts in two corpora and the score of the change between them.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class WordChange
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class WordChange {
+
+    private final String wordContent;
+    private final long before;
+    private final long after;
+    private final double score;
+
+    /**
+     * Constructs a WordChange.
+     *
+     * @param wordContent the content of the word
+     * @param before the count of the word in the first corpus
+     * @param after the count of the word in the second corpus
+     * @param score the score of the change, positive if the word became more frequent
+     */
+    public WordChange(String wordContent, long before, long after, double score) {
+        this.wordContent = wordContent;
+        this.before = before;
+        this.after = after;
+        this.score = score;
+    }
+
+    /**
+     * Gets the content of the word.
+     *
+     * @return the content of the word
+     */
+    public String getWordContent() {
+        return wordContent;
+    }
+
+    /**
+     * Gets the count of the word in the first corpus.
+     *
+     * @return the count before
+     */
+    public long getBefore() {
+        return before;
+    }
+
+    /**
+     * Gets the count of the word in the second corpus.
+     *
+     * @return the count after
+     */
+    public long getAfter() {
+        return after;
+    }
+
+    /**
+     * Gets the score of the change.
+     *
+     * @return the score, positive if the word became more frequent
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Provides a string representation of the WordChange object.
+     *
+     * @return a string representation of the WordChange object
+     */
+    @Override
+    public String toString() {
+        return "Word{" +
+                "content='" + wordContent + '\'' +
+                ", before=" + before +
+                ", after=" + after +
+                ", score=" + String.format("%+.2f", score) +
+                '}';
+    }
+}
@@ -0,0 +1,483 @@
+package edu.pro.gzip;
+
+import edu.pro.count.WordCountTable;
+import edu.pro.metrics.ThreadAllocation;
+import edu.pro.tokenize.ByteTokenizer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Word counter for gzip files made of several members, such as the output of {@code pigz
+ * --independent}, {@code bgzip} or {@code cat part1.gz part2.gz}. The compressed file is split
+ * into byte ranges and every thread decompresses and counts the members starting in its own
+ * range, so the inflate cost is spread over the cores.
+ *
+ * <p>Member boundaries are not recorded anywhere in the file. A thread therefore looks for
+ * the first gzip header in its range and inflates from there; a header that only appears by
+ * chance inside compressed data fails to inflate or to match its CRC, and the next one is
+ * tried. The members of a range are followed one after the other, and the ranges are checked
+ * to form one unbroken chain from the start to the end of the file before their counts are
+ * merged. Words cut by a member or range boundary are completed while merging.
+ *
+ * <p>The first range is inflated on the calling thread before the others are handed out. A
+ * file written by a single {@code gzip} call is one member, which that range inflates to the
+ * end of the file, so it is counted by one thread and no other thread scans its compressed
+ * data for headers. Otherwise the remaining ranges start at the member the first one ended on.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class ParallelGzipWordCounter
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class ParallelGzipWordCounter {
+
+    // Ranges per worker thread, so a range of large members does not leave the other threads idle
+    private static final int RANGES_PER_THREAD = 2;
+
+    // Ranges smaller than this are not worth a task of their own
+    private static final long MIN_RANGE_SIZE = 1 << 20;
+
+    // Compressed bytes read from the file at once
+    private static final int INPUT_SIZE = 64 * 1024;
+
+    // Size of the buffer the decompressed text is written to and tokenized in
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    // Gzip header, see RFC 1952
+    private static final int ID1 = 0x1f;
+    private static final int ID2 = 0x8b;
+    private static final int DEFLATE = 8;
+    private static final int FHCRC = 0x02;
+    private static final int FEXTRA = 0x04;
+    private static final int FNAME = 0x08;
+    private static final int FCOMMENT = 0x10;
+    private static final int RESERVED_FLAGS = 0xe0;
+
+    // Modification time, extra flags and operating system, which the counter does not need
+    private static final int UNUSED_HEADER_BYTES = 6;
+
+    private ParallelGzipWordCounter() {
+    }
+
+    /**
+     * Counts the words of the gzip file in parallel.
+     *
+     * @param file the gzip file to count
+     * @param parallelism the number of worker threads
+     * @return the table holding the merged frequencies
+     * @throws IOException if the file cannot be read or is not valid gzip data
+     */
+    public static WordCountTable count(Path file, int parallelism) throws IOException {
+        return count(file, parallelism, new LongAdder());
+    }
+
+    /**
+     * Counts the words of the gzip file in parallel, adding up the bytes the threads allocate
+     * while inflating, counting and merging.
+     *
+     * @param file the gzip file to count
+     * @param parallelism the number of worker threads
+     * @param allocatedBytes receives the bytes allocated by the worker threads and the caller
+     * @return the table holding the merged frequencies
+     * @throws IOException if the file cannot be read or is not valid gzip data
+     */
+    public static WordCountTable count(Path file, int parallelism, LongAdder allocatedBytes) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long step = Math.max(MIN_RANGE_SIZE, size / ((long) parallelism * RANGES_PER_THREAD) + 1);
+
+            // Members are only known to follow once the first range is inflated
+            Segment first = decompress(channel, 0, Math.min(size, step), allocatedBytes);
+            List<Segment> segments = new ArrayList<>();
+            segments.add(first);
+
+            List<Future<Segment>> futures = new ArrayList<>();
+            for (long start = first.end; start < size; start += step) {
+                long from = start;
+                long to = Math.min(size, start + step);
+                futures.add(pool.submit(() -> decompress(channel, from, to, allocatedBytes)));
+            }
+
+            for (Future<Segment> future : futures) {
+                Segment segment = get(future);
+                if (segment != null) {
+                    segments.add(segment);
+                }
+            }
+            if (!isChain(segments, size)) {
+                // A header found by chance decoded cleanly, so the ranges cannot be trusted; inflate in one go
+                segments = List.of(decompress(channel, 0, size, allocatedBytes));
+            }
+            long allocated = ThreadAllocation.current();
+            WordCountTable table = join(segments);
+            allocatedBytes.add(ThreadAllocation.current() - allocated);
+            return table;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Inflates and counts every member starting in {@code [from, to)}. The range starting at
+     * zero must begin with a member; any other range starts at the first header that inflates.
+     *
+     * @param channel the compressed file
+     * @param from the first position of the range
+     * @param to the position after the last one of the range
+     * @param allocatedBytes receives the bytes the calling thread allocates
+     * @return the counts of the members of the range, or {@code null} if no member starts in it
+     * @throws IOException if the file cannot be read or a member is corrupt
+     */
+    private static Segment decompress(FileChannel channel, long from, long to, LongAdder allocatedBytes)
+            throws IOException {
+        long allocated = ThreadAllocation.current();
+        Input input = new Input(channel);
+        Inflater inflater = new Inflater(true);
+        try {
+            long candidate = from;
+            while (true) {
+                if (from > 0) {
+                    candidate = input.findHeader(candidate, to);
+                    if (candidate < 0) {
+                        return null;
+                    }
+                }
+
+                Segment segment = new Segment(candidate);
+                long next;
+                try {
+                    next = inflateMember(input, candidate, inflater, segment);
+                } catch (ZipException | EOFException e) {
+                    if (from == 0) {
+                        throw e;
+                    }
+                    // Not a real member, the bytes only looked like a header
+                    candidate++;
+                    continue;
+                }
+
+                while (next < to && next < input.size) {
+                    if (!input.isHeader(next)) {
+                        // Trailing bytes after the last member are ignored, as GZIPInputStream does
+                        next = input.size;
+                        break;
+                    }
+                    next = inflateMember(input, next, inflater, segment);
+                }
+                segment.end = next;
+                return segment;
+            }
+        } finally {
+            inflater.end();
+            allocatedBytes.add(ThreadAllocation.current() - allocated);
+        }
+    }
+
+    /**
+     * Inflates one member into the segment and checks its trailer.
+     *
+     * @param input the compressed file
+     * @param position the position of the member header
+     * @param inflater the inflater to reuse
+     * @param segment the segment receiving the text
+     * @return the position after the member
+     * @throws IOException if the file cannot be read or the member is corrupt
+     */
+    private static long inflateMember(Input input, long position, Inflater inflater, Segment segment)
+            throws IOException {
+        input.seek(position);
+        if (input.readByte() != ID1 || input.readByte() != ID2 || input.readByte() != DEFLATE) {
+            throw new ZipException("Not in GZIP format");
+        }
+        int flags = input.readByte();
+        if ((flags & RESERVED_FLAGS) != 0) {
+            throw new ZipException("Unsupported GZIP flags");
+        }
+        input.skip(UNUSED_HEADER_BYTES);
+        if ((flags & FEXTRA) != 0) {
+            input.skip(input.readByte() | input.readByte() << 8);
+        }
+        if ((flags & FNAME) != 0) {
+            input.skipString();
+        }
+        if ((flags & FCOMMENT) != 0) {
+            input.skipString();
+        }
+        if ((flags & FHCRC) != 0) {
+            input.skip(2);
+        }
+
+        inflater.reset();
+        CRC32 crc = new CRC32();
+        long produced = 0;
+        try {
+            while (!inflater.finished()) {
+                if (inflater.needsInput()) {
+                    input.feed(inflater);
+                } else if (inflater.needsDictionary()) {
+                    throw new ZipException("Unexpected preset dictionary");
+                }
+                segment.ensureRoom();
+                int length = inflater.inflate(segment.chunk, segment.carry, segment.chunk.length - segment.carry);
+                crc.update(segment.chunk, segment.carry, length);
+                produced += length;
+                segment.consume(length);
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException(e.getMessage());
+        }
+        input.unread(inflater.getRemaining());
+
+        long expectedCrc = input.readInt();
+        long expectedSize = input.readInt();
+        if (expectedCrc != crc.getValue() || expectedSize != (produced & 0xffffffffL)) {
+            throw new ZipException("Corrupt GZIP trailer");
+        }
+        return input.position();
+    }
+
+    private static boolean isChain(List<Segment> segments, long size) {
+        long expected = 0;
+        for (Segment segment : segments) {
+            if (segment.start != expected) {
+                return false;
+            }
+            expected = segment.end;
+        }
+        return expected == size && !segments.isEmpty();
+    }
+
+    /**
+     * Merges the counts of the segments and counts the words cut at their edges.
+     *
+     * @param segments the segments in file order
+     * @return the merged table
+     */
+    private static WordCountTable join(List<Segment> segments) {
+        WordCountTable table = segments.get(0).table;
+        byte[] word = new byte[64];
+        int length = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            if (i > 0) {
+                table.merge(segment.table);
+            }
+            word = append(word, length, segment.head, segment.headLength);
+            length += segment.headLength;
+            if (segment.delimiterSeen) {
+                // The cut word ends where the segment has its first delimiter, and a new one starts at its end
+                count(table, word, length);
+                word = append(word, 0, segment.chunk, segment.carry);
+                length = segment.carry;
+            }
+        }
+        count(table, word, length);
+        return table;
+    }
+
+    private static byte[] append(byte[] target, int length, byte[] source, int sourceLength) {
+        // One spare byte for the delimiter appended when the word is counted
+        if (length + sourceLength + 1 > target.length) {
+            target = Arrays.copyOf(target, Math.max(target.length * 2, length + sourceLength + 1));
+        }
+        System.arraycopy(source, 0, target, length, sourceLength);
+        return target;
+    }
+
+    private static void count(WordCountTable table, byte[] word, int length) {
+        if (length > 0) {
+            // Scanning with a delimiter after the word folds it to lower case the same way as the rest
+            word[length] = ' ';
+            ByteTokenizer.scan(word, 0, length + 1, table);
+        }
+    }
+
+    private static Segment get(Future<Segment> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while decompressing");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    /**
+     * Text of the members starting in one range: the words counted inside it, and the pieces
+     * of the words cut at its start and end, which belong to the neighbouring ranges as well.
+     */
+    private static final class Segment {
+
+        private final long start;
+        private long end;
+        private final WordCountTable table = new WordCountTable();
+
+        // Decompressed text; the front holds the unfinished word of the previous piece
+        private byte[] chunk = new byte[CHUNK_SIZE];
+        private int carry;
+
+        // Letters before the first delimiter, which may continue a word of the previous range
+        private byte[] head = new byte[16];
+        private int headLength;
+        private boolean delimiterSeen;
+
+        Segment(long start) {
+            this.start = start;
+        }
+
+        void ensureRoom() {
+            // A word longer than the whole chunk needs a bigger chunk
+            if (carry == chunk.length) {
+                chunk = Arrays.copyOf(chunk, chunk.length * 2);
+            }
+        }
+
+        void consume(int length) {
+            int filled = carry + length;
+            int from = 0;
+            if (!delimiterSeen) {
+                while (from < filled && ByteTokenizer.isLetter(chunk[from])) {
+                    from++;
+                }
+                head = append(head, headLength, chunk, from);
+                headLength += from;
+                if (from == filled) {
+                    return;
+                }
+                delimiterSeen = true;
+            }
+            int pending = ByteTokenizer.scan(chunk, from, filled, table);
+            carry = filled - pending;
+            System.arraycopy(chunk, pending, chunk, 0, carry);
+        }
+    }
+
+    /**
+     * Buffered reader of the compressed file at any position.
+     */
+    private static final class Input {
+
+        private final FileChannel channel;
+        private final long size;
+        private final byte[] buffer = new byte[INPUT_SIZE];
+
+        // The buffer holds the bytes [bufferStart, bufferStart + limit) of the file
+        private long bufferStart;
+        private int limit;
+        private int next;
+
+        Input(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        long position() {
+            return bufferStart + next;
+        }
+
+        void seek(long position) {
+            if (position >= bufferStart && position <= bufferStart + limit) {
+                next = (int) (position - bufferStart);
+            } else {
+                bufferStart = position;
+                limit = 0;
+                next = 0;
+            }
+        }
+
+        int readByte() throws IOException {
+            if (next == limit && !fill()) {
+                throw new EOFException("Unexpected end of GZIP input");
+            }
+            return buffer[next++] & 0xFF;
+        }
+
+        long readInt() throws IOException {
+            return readByte() | readByte() << 8 | readByte() << 16 | (long) readByte() << 24;
+        }
+
+        void skip(int count) throws IOException {
+            seek(position() + count);
+        }
+
+        void skipString() throws IOException {
+            while (readByte() != 0) {
+                // The string ends with a zero byte
+            }
+        }
+
+        void feed(Inflater inflater) throws IOException {
+            if (next == limit && !fill()) {
+                throw new EOFException("Unexpected end of GZIP input");
+            }
+            inflater.setInput(buffer, next, limit - next);
+            next = limit;
+        }
+
+        void unread(int count) {
+            next -= count;
+        }
+
+        boolean isHeader(long position) throws IOException {
+            if (position + 4 > size) {
+                return false;
+            }
+            seek(position);
+            return readByte() == ID1 && readByte() == ID2 && readByte() == DEFLATE
+                    && (readByte() & RESERVED_FLAGS) == 0;
+        }
+
+        long findHeader(long from, long to) throws IOException {
+            for (long position = from; position < to; position++) {
+                if (isHeader(position)) {
+                    return position;
+                }
+            }
+            return -1;
+        }
+
+        private boolean fill() throws IOException {
+            bufferStart += next;
+            next = 0;
+            limit = 0;
+            int read = channel.read(ByteBuffer.wrap(buffer), bufferStart);
+            if (read <= 0) {
+                return false;
+            }
+            limit = read;
+            return true;
+        }
+    }
+}
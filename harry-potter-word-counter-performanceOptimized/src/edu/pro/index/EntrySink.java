@@ -0,0 +1,27 @@
+package edu.pro.index;
+
+import java.io.IOException;
+
+/**
+ * Callback receiving the entries of a merge in dictionary order.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class EntrySink
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+@FunctionalInterface
+public interface EntrySink {
+
+    /**
+     * Accepts one word and its count. The slice is only valid for the duration of the call.
+     *
+     * @param word the buffer holding the word
+     * @param offset the index of the first byte of the word
+     * @param length the number of bytes in the word
+     * @param count the count of the word
+     * @throws IOException if the entry cannot be written
+     */
+    void accept(byte[] word, int offset, int length, long count) throws IOException;
+}
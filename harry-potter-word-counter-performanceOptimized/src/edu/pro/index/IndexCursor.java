@@ -0,0 +1,147 @@
+package edu.pro.index;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Sequential reader of a word index, yielding the words in dictionary order together with
+ * their counts. The dictionary and the counts column are decoded side by side in one pass.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class IndexCursor
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class IndexCursor implements Comparable<IndexCursor> {
+
+    private final IndexData.Reader dictionary;
+    private final IndexData.Reader counts;
+    private final long wordCount;
+
+    private long ordinal = -1;
+    private byte[] word = new byte[64];
+    private int wordLength;
+    private long count;
+
+    IndexCursor(IndexData data, long countsOffset, long wordCount) {
+        this(data, IndexFormat.HEADER_SIZE, countsOffset, 0, wordCount);
+    }
+
+    /**
+     * Creates a cursor positioned before the first word of a block.
+     *
+     * @param data the index file
+     * @param dictionaryOffset the offset of the dictionary of the block
+     * @param countsOffset the offset of the counts of the block
+     * @param firstOrdinal the ordinal of the first word of the block
+     * @param wordCount the number of words in the index
+     */
+    IndexCursor(IndexData data, long dictionaryOffset, long countsOffset, long firstOrdinal, long wordCount) {
+        this.dictionary = data.reader(dictionaryOffset);
+        this.counts = data.reader(countsOffset);
+        this.ordinal = firstOrdinal - 1;
+        this.wordCount = wordCount;
+    }
+
+    /**
+     * Moves to the next word.
+     *
+     * @return {@code false} if there are no more words
+     */
+    public boolean next() {
+        if (ordinal + 1 >= wordCount) {
+            ordinal = wordCount;
+            return false;
+        }
+        ordinal++;
+
+        int shared = ordinal % IndexFormat.BLOCK_SIZE == 0 ? 0 : (int) Varint.read(dictionary);
+        int suffixLength = (int) Varint.read(dictionary);
+        wordLength = shared + suffixLength;
+        if (word.length < wordLength) {
+            word = Arrays.copyOf(word, Math.max(wordLength, word.length * 2));
+        }
+        dictionary.read(word, shared, suffixLength);
+        count = Varint.read(counts);
+        return true;
+    }
+
+    /**
+     * Gets the position of the current word in the dictionary.
+     *
+     * @return the ordinal of the current word
+     */
+    public long ordinal() {
+        return ordinal;
+    }
+
+    /**
+     * Gets the buffer holding the current word, valid until the next call to {@link #next()}.
+     *
+     * @return the buffer, whose first {@link #wordLength()} bytes are the word
+     */
+    public byte[] word() {
+        return word;
+    }
+
+    /**
+     * Gets the number of bytes in the current word.
+     *
+     * @return the length of the current word
+     */
+    public int wordLength() {
+        return wordLength;
+    }
+
+    /**
+     * Gets the current word as a new {@code String}.
+     *
+     * @return the current word
+     */
+    public String wordString() {
+        return new String(word, 0, wordLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the count of the current word.
+     *
+     * @return the count of the current word
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Compares the current word with a key in dictionary order.
+     *
+     * @param key the buffer holding the key
+     * @param offset the index of the first byte of the key
+     * @param length the number of bytes in the key
+     * @return a negative number, zero or a positive number as the current word sorts before, equal to or after the key
+     */
+    public int compareWord(byte[] key, int offset, int length) {
+        return Arrays.compareUnsigned(word, 0, wordLength, key, offset, offset + length);
+    }
+
+    /**
+     * Checks whether the current word begins with the prefix.
+     *
+     * @param prefix the bytes the word must begin with
+     * @return {@code true} if the word begins with the prefix
+     */
+    public boolean startsWith(byte[] prefix) {
+        return wordLength >= prefix.length && Arrays.equals(word, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    /**
+     * Compares the current words of two cursors in dictionary order.
+     *
+     * @param other the other cursor
+     * @return a negative number, zero or a positive number as this word sorts before, equal to or after the other
+     */
+    @Override
+    public int compareTo(IndexCursor other) {
+        return Arrays.compareUnsigned(word, 0, wordLength, other.word, 0, other.wordLength);
+    }
+}
@@ -0,0 +1,164 @@
+package edu.pro.index;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only view of a whole index file addressed by {@code long} positions. A single mapping
+ * cannot be larger than 2 GB, so the file is mapped in windows of {@value #WINDOW_SIZE} bytes
+ * and every read picks the window holding its position; values and words that straddle two
+ * windows are put together byte by byte.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class IndexData
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+final class IndexData {
+
+    private static final int WINDOW_SHIFT = 30;
+    static final int WINDOW_SIZE = 1 << WINDOW_SHIFT;
+
+    private final ByteBuffer[] windows;
+    private final long size;
+
+    private IndexData(ByteBuffer[] windows, long size) {
+        this.windows = windows;
+        this.size = size;
+    }
+
+    /**
+     * Maps a whole file. The mappings stay valid after the channel is closed.
+     *
+     * @param channel the file to map
+     * @return the mapped data
+     * @throws IOException if the file cannot be mapped
+     */
+    static IndexData map(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer[] windows = new ByteBuffer[(int) ((size + WINDOW_SIZE - 1) >>> WINDOW_SHIFT)];
+        for (int i = 0; i < windows.length; i++) {
+            long position = (long) i << WINDOW_SHIFT;
+            windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+        }
+        return new IndexData(windows, size);
+    }
+
+    /**
+     * Gets the size of the file.
+     *
+     * @return the number of bytes
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Reads a big-endian {@code int}.
+     *
+     * @param position the position of its first byte
+     * @return the value
+     */
+    int getInt(long position) {
+        return (int) getBigEndian(position, Integer.BYTES);
+    }
+
+    /**
+     * Reads a big-endian {@code long}.
+     *
+     * @param position the position of its first byte
+     * @return the value
+     */
+    long getLong(long position) {
+        return getBigEndian(position, Long.BYTES);
+    }
+
+    /**
+     * Opens a sequential reader.
+     *
+     * @param position the position of the first byte to read
+     * @return a new reader
+     */
+    Reader reader(long position) {
+        return new Reader(position);
+    }
+
+    private long getBigEndian(long position, int bytes) {
+        int offset = offset(position);
+        ByteBuffer window = windows[window(position)];
+        if (offset + bytes <= window.limit()) {
+            return bytes == Long.BYTES ? window.getLong(offset) : window.getInt(offset);
+        }
+        // The value straddles two windows
+        Reader reader = reader(position);
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value = value << 8 | (reader.readByte() & 0xFF);
+        }
+        return value;
+    }
+
+    private static int window(long position) {
+        return (int) (position >>> WINDOW_SHIFT);
+    }
+
+    private static int offset(long position) {
+        return (int) (position & (WINDOW_SIZE - 1));
+    }
+
+    /**
+     * Reader moving forward through the file from window to window. Not thread-safe; every
+     * thread opens its own.
+     */
+    final class Reader {
+
+        private int window;
+        private ByteBuffer buffer;
+
+        private Reader(long position) {
+            window = IndexData.window(position);
+            buffer = window < windows.length ? windows[window].duplicate().position(offset(position))
+                    : ByteBuffer.allocate(0);
+        }
+
+        /**
+         * Reads the next byte.
+         *
+         * @return the byte
+         */
+        byte readByte() {
+            if (!buffer.hasRemaining()) {
+                nextWindow();
+            }
+            return buffer.get();
+        }
+
+        /**
+         * Reads the next bytes into an array.
+         *
+         * @param target the array to fill
+         * @param offset the index of the first byte to fill
+         * @param length the number of bytes to read
+         */
+        void read(byte[] target, int offset, int length) {
+            while (length > 0) {
+                if (!buffer.hasRemaining()) {
+                    nextWindow();
+                }
+                int chunk = Math.min(length, buffer.remaining());
+                buffer.get(target, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        private void nextWindow() {
+            // Past the last window, the read below fails with a BufferUnderflowException
+            if (window + 1 < windows.length) {
+                buffer = windows[++window].duplicate();
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package edu.pro.index;
+
+/**
+ * Layout of a word index file. All fixed-size numbers are big-endian.
+ *
+ * <pre>
+ * header      int magic, int version, long wordCount, long totalCount,
+ *             int blockSize, int reserved, long countsOffset, long blockIndexOffset
+ * dictionary  the words in unsigned byte order, front-coded in blocks of blockSize words:
+ *             the first word of a block is stored as varint length + bytes, every other
+ *             word as varint shared prefix length + varint suffix length + suffix bytes
+ * counts      one varint count per word, in dictionary order
+ * blockIndex  per block: long offset of its first word, long offset of its first count
+ * </pre>
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class IndexFormat
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+final class IndexFormat {
+
+    // "WIDX" in ASCII
+    static final int MAGIC = 0x57494458;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 48;
+
+    // Words per front-coding block; a lookup decodes at most one block
+    static final int BLOCK_SIZE = 16;
+
+    // Size of one block index entry: the dictionary offset and the counts offset
+    static final int BLOCK_ENTRY_SIZE = 16;
+
+    private IndexFormat() {
+    }
+}
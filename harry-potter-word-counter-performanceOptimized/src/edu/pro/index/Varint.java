@@ -0,0 +1,57 @@
+package edu.pro.index;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Variable-length encoding of non-negative numbers: seven bits per byte, low bits first,
+ * with the high bit set on every byte except the last. Small numbers, which most word
+ * counts and lengths are, take a single byte.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class Varint
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+final class Varint {
+
+    private Varint() {
+    }
+
+    /**
+     * Writes a number.
+     *
+     * @param output the stream to write to
+     * @param value the non-negative number to write
+     * @return the number of bytes written
+     * @throws IOException if the stream cannot be written
+     */
+    static int write(OutputStream output, long value) throws IOException {
+        int written = 1;
+        while ((value & ~0x7FL) != 0) {
+            output.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+            written++;
+        }
+        output.write((int) value);
+        return written;
+    }
+
+    /**
+     * Reads a number at the reader position and moves the position past it.
+     *
+     * @param reader the index reader to read from
+     * @return the decoded number
+     */
+    static long read(IndexData.Reader reader) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte next = reader.readByte();
+            value |= (long) (next & 0x7F) << shift;
+            if (next >= 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package edu.pro.index;
+
+import edu.pro.Word;
+import edu.pro.rank.TopK;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Memory-mapped, read-only word index written by {@link WordIndexWriter}. Answers point and
+ * top-K queries straight from the file, without re-tokenizing the corpus. Files of any size
+ * are read through {@link IndexData} windows. Safe to use from several threads.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class WordIndex
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class WordIndex {
+
+    private final Path file;
+    private final IndexData data;
+    private final long wordCount;
+    private final long totalCount;
+    private final long countsOffset;
+    private final long blockIndexOffset;
+    private final int blocks;
+
+    private WordIndex(Path file, IndexData data) throws IOException {
+        this.file = file;
+        this.data = data;
+        if (data.size() < IndexFormat.HEADER_SIZE || data.getInt(0) != IndexFormat.MAGIC) {
+            throw new IOException("Not a word index: " + file);
+        }
+        if (data.getInt(4) != IndexFormat.VERSION || data.getInt(24) != IndexFormat.BLOCK_SIZE) {
+            throw new IOException("Unsupported word index version " + data.getInt(4) + ": " + file);
+        }
+        this.wordCount = data.getLong(8);
+        this.totalCount = data.getLong(16);
+        this.countsOffset = data.getLong(32);
+        this.blockIndexOffset = data.getLong(40);
+        this.blocks = (int) ((wordCount + IndexFormat.BLOCK_SIZE - 1) / IndexFormat.BLOCK_SIZE);
+    }
+
+    /**
+     * Maps an index file.
+     *
+     * @param file the index file
+     * @return the opened index
+     * @throws IOException if the file cannot be mapped or is not a word index
+     */
+    public static WordIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new WordIndex(file, IndexData.map(channel));
+        }
+    }
+
+    /**
+     * Gets the index file.
+     *
+     * @return the path the index was opened from
+     */
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Gets the number of distinct words.
+     *
+     * @return the number of words in the dictionary
+     */
+    public long wordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Gets the sum of all counts.
+     *
+     * @return the number of words in the indexed corpus
+     */
+    public long totalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Opens a cursor positioned before the first word.
+     *
+     * @return a new cursor
+     */
+    public IndexCursor cursor() {
+        return new IndexCursor(data, countsOffset, wordCount);
+    }
+
+    /**
+     * Looks up the count of a word.
+     *
+     * @param word the word
+     * @return its count, or zero if the word is not in the index
+     */
+    public long frequency(String word) {
+        byte[] key = word.getBytes(StandardCharsets.UTF_8);
+        long ordinal = ordinal(key, 0, key.length);
+        return ordinal < 0 ? 0 : count(ordinal);
+    }
+
+    /**
+     * Finds the position of a word in the dictionary.
+     *
+     * @param key the buffer holding the word
+     * @param offset the index of the first byte of the word
+     * @param length the number of bytes in the word
+     * @return the ordinal of the word, or {@code -1} if it is not in the index
+     */
+    public long ordinal(byte[] key, int offset, int length) {
+        IndexCursor cursor = seek(key, offset, length);
+        return cursor != null && cursor.compareWord(key, offset, length) == 0 ? cursor.ordinal() : -1;
+    }
+
+    /**
+     * Opens a cursor on the first word that is not less than the key, the place the key has
+     * or would have in the dictionary. Only the block holding that place is decoded.
+     *
+     * @param key the buffer holding the key
+     * @param offset the index of the first byte of the key
+     * @param length the number of bytes in the key
+     * @return a cursor whose current word is the first one not less than the key, or {@code null} if there is none
+     */
+    public IndexCursor seek(byte[] key, int offset, int length) {
+        if (blocks == 0) {
+            return null;
+        }
+        byte[] word = new byte[64];
+
+        // Find the last block whose first word is not greater than the key
+        int low = 0;
+        int high = blocks - 1;
+        int block = 0;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            IndexData.Reader reader = data.reader(blockDictionaryOffset(middle));
+            int firstLength = (int) Varint.read(reader);
+            word = ensureCapacity(word, firstLength);
+            reader.read(word, 0, firstLength);
+
+            int comparison = Arrays.compareUnsigned(word, 0, firstLength, key, offset, offset + length);
+            if (comparison == 0) {
+                block = middle;
+                break;
+            } else if (comparison < 0) {
+                block = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        // Decode word by word; the words are sorted, so the first one not less than the key is the place
+        IndexCursor cursor = new IndexCursor(data, blockDictionaryOffset(block), blockCountsOffset(block),
+                (long) block * IndexFormat.BLOCK_SIZE, wordCount);
+        while (cursor.next()) {
+            if (cursor.compareWord(key, offset, length) >= 0) {
+                return cursor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Selects the most frequent words beginning with the prefix. The words sharing a prefix
+     * are adjacent in the dictionary, so only their range is decoded. Ties are ordered
+     * alphabetically.
+     *
+     * @param prefix the prefix, empty for every word
+     * @param k the maximum number of words to return
+     * @return the selected words, most frequent first
+     */
+    public List<Word> topWithPrefix(String prefix, int k) {
+        byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+        TopK topK = new TopK(k, Integer::compare);
+        IndexCursor cursor = seek(key, 0, key.length);
+        if (cursor != null) {
+            do {
+                if (!cursor.startsWith(key)) {
+                    break;
+                }
+                topK.offer(Math.toIntExact(cursor.ordinal()), cursor.count());
+            } while (cursor.next());
+        }
+        return words(topK);
+    }
+
+    /**
+     * Gets the count of the word at the given position.
+     *
+     * @param ordinal the position of the word in the dictionary
+     * @return its count
+     */
+    public long count(long ordinal) {
+        int block = (int) (ordinal / IndexFormat.BLOCK_SIZE);
+        IndexData.Reader reader = data.reader(blockCountsOffset(block));
+        for (long skipped = (long) block * IndexFormat.BLOCK_SIZE; skipped < ordinal; skipped++) {
+            Varint.read(reader);
+        }
+        return Varint.read(reader);
+    }
+
+    /**
+     * Gets the word at the given position.
+     *
+     * @param ordinal the position of the word in the dictionary
+     * @return the word
+     */
+    public String word(long ordinal) {
+        int block = (int) (ordinal / IndexFormat.BLOCK_SIZE);
+        IndexData.Reader reader = data.reader(blockDictionaryOffset(block));
+        byte[] word = new byte[64];
+        int length = 0;
+        for (long current = (long) block * IndexFormat.BLOCK_SIZE; current <= ordinal; current++) {
+            int shared = current % IndexFormat.BLOCK_SIZE == 0 ? 0 : (int) Varint.read(reader);
+            int suffixLength = (int) Varint.read(reader);
+            length = shared + suffixLength;
+            word = ensureCapacity(word, length);
+            reader.read(word, shared, suffixLength);
+        }
+        return new String(word, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Selects the most frequent words by scanning the counts column only. The dictionary is
+     * decoded just for the selected words. Ties are ordered alphabetically.
+     *
+     * @param k the maximum number of words to return
+     * @return the selected words, most frequent first
+     */
+    public List<Word> top(int k) {
+        if (wordCount > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many words to rank: " + wordCount);
+        }
+        // Ordinals follow dictionary order, so comparing them breaks ties alphabetically
+        TopK topK = new TopK(k, Integer::compare);
+        IndexData.Reader counts = data.reader(countsOffset);
+        for (int ordinal = 0; ordinal < wordCount; ordinal++) {
+            topK.offer(ordinal, Varint.read(counts));
+        }
+
+        return words(topK);
+    }
+
+    /**
+     * Selects the most frequent words of every prefix up to the given length in one pass over
+     * the index. Words sharing a prefix are adjacent, so only one selection per prefix length
+     * is open at a time.
+     *
+     * @param prefixLength the longest prefix to select for
+     * @param k the maximum number of words per prefix
+     * @return the selected words by prefix, most frequent first
+     */
+    public Map<String, List<Word>> topByPrefix(int prefixLength, int k) {
+        Map<String, List<Word>> selections = new HashMap<>();
+        TopK[] open = new TopK[prefixLength + 1];
+        byte[][] openPrefix = new byte[prefixLength + 1][];
+
+        IndexCursor cursor = cursor();
+        while (cursor.next()) {
+            for (int length = 1; length <= Math.min(prefixLength, cursor.wordLength()); length++) {
+                if (open[length] == null || !cursor.startsWith(openPrefix[length])) {
+                    if (open[length] != null) {
+                        selections.put(new String(openPrefix[length], StandardCharsets.UTF_8), words(open[length]));
+                    }
+                    open[length] = new TopK(k, Integer::compare);
+                    openPrefix[length] = Arrays.copyOf(cursor.word(), length);
+                }
+                open[length].offer(Math.toIntExact(cursor.ordinal()), cursor.count());
+            }
+        }
+        for (int length = 1; length <= prefixLength; length++) {
+            if (open[length] != null) {
+                selections.put(new String(openPrefix[length], StandardCharsets.UTF_8), words(open[length]));
+            }
+        }
+        return selections;
+    }
+
+    private List<Word> words(TopK topK) {
+        int[] ordinals = topK.ids();
+        long[] rankedCounts = topK.counts();
+        List<Word> words = new ArrayList<>(ordinals.length);
+        for (int i = 0; i < ordinals.length; i++) {
+            words.add(new Word(word(ordinals[i]), rankedCounts[i]));
+        }
+        return words;
+    }
+
+    private long blockDictionaryOffset(int block) {
+        return data.getLong(blockIndexOffset + (long) block * IndexFormat.BLOCK_ENTRY_SIZE);
+    }
+
+    private long blockCountsOffset(int block) {
+        return data.getLong(blockIndexOffset + (long) block * IndexFormat.BLOCK_ENTRY_SIZE + 8);
+    }
+
+    private static byte[] ensureCapacity(byte[] buffer, int length) {
+        return buffer.length >= length ? buffer : Arrays.copyOf(buffer, Math.max(length, buffer.length * 2));
+    }
+}
@@ -0,0 +1,73 @@
+package edu.pro.index;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Merges word indexes in one streaming pass: the cursors of all inputs advance together in
+ * dictionary order, and the counts of equal words are added up. Memory use depends only on
+ * the number of inputs, not on their size.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class WordIndexMerger
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class WordIndexMerger {
+
+    private WordIndexMerger() {
+    }
+
+    /**
+     * Merges index files into a new one.
+     *
+     * @param inputs the indexes to merge
+     * @param output the index file to write, which must not be one of the inputs
+     * @throws IOException if an input cannot be read or the output cannot be written
+     */
+    public static void merge(List<Path> inputs, Path output) throws IOException {
+        try (WordIndexWriter writer = new WordIndexWriter(output)) {
+            merge(inputs, writer::add);
+        }
+    }
+
+    /**
+     * Merges index files, passing every distinct word with its total count to a sink in
+     * dictionary order.
+     *
+     * @param inputs the indexes to merge
+     * @param sink the sink receiving the merged entries
+     * @throws IOException if an input cannot be read or the sink fails
+     */
+    public static void merge(List<Path> inputs, EntrySink sink) throws IOException {
+        PriorityQueue<IndexCursor> cursors = new PriorityQueue<>(Math.max(1, inputs.size()));
+        for (Path input : inputs) {
+            IndexCursor cursor = WordIndex.open(input).cursor();
+            if (cursor.next()) {
+                cursors.add(cursor);
+            }
+        }
+
+        while (!cursors.isEmpty()) {
+            IndexCursor smallest = cursors.poll();
+            long count = smallest.count();
+
+            // Add up the same word from every other input that has it
+            while (!cursors.isEmpty() && cursors.peek().compareTo(smallest) == 0) {
+                IndexCursor same = cursors.poll();
+                count += same.count();
+                if (same.next()) {
+                    cursors.add(same);
+                }
+            }
+
+            sink.accept(smallest.word(), 0, smallest.wordLength(), count);
+            if (smallest.next()) {
+                cursors.add(smallest);
+            }
+        }
+    }
+}
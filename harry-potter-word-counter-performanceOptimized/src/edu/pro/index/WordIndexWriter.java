@@ -0,0 +1,186 @@
+package edu.pro.index;
+
+import edu.pro.count.WordCountTable;
+import edu.pro.rank.IdSorter;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes a word index file in one sequential pass. Words must be added in strictly
+ * increasing unsigned byte order. The counts column is collected in a temporary file next to
+ * the index and appended on {@link #close()}, so only the block index, two numbers per block,
+ * is kept in memory.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class WordIndexWriter
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class WordIndexWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final Path countsFile;
+    private final OutputStream dictionary;
+    private final OutputStream counts;
+
+    // Bytes written so far to each stream
+    private long dictionaryPosition = IndexFormat.HEADER_SIZE;
+    private long countsPosition;
+
+    // Dictionary and counts offsets of every block, relative to their sections
+    private long[] blockOffsets = new long[64];
+
+    private byte[] previous = new byte[64];
+    private int previousLength = -1;
+    private long wordCount;
+    private long totalCount;
+
+    /**
+     * Creates the index file, replacing an existing one.
+     *
+     * @param file the index file to write
+     * @throws IOException if the file cannot be created
+     */
+    public WordIndexWriter(Path file) throws IOException {
+        this.file = file;
+        this.countsFile = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName() + ".", ".counts");
+        this.dictionary = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+        this.counts = new BufferedOutputStream(Files.newOutputStream(countsFile), BUFFER_SIZE);
+        // Reserve room for the header, which is only known at the end
+        dictionary.write(new byte[IndexFormat.HEADER_SIZE]);
+    }
+
+    /**
+     * Writes every word of a table, sorted.
+     *
+     * @param table the table to write
+     * @param file the index file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(WordCountTable table, Path file) throws IOException {
+        int[] ids = new int[table.size()];
+        Arrays.setAll(ids, id -> id);
+        IdSorter.sort(ids, table::compareWords);
+
+        try (WordIndexWriter writer = new WordIndexWriter(file)) {
+            for (int id : ids) {
+                writer.add(table.arena(), table.wordOffset(id), table.wordLength(id), table.count(id));
+            }
+        }
+    }
+
+    /**
+     * Appends a word.
+     *
+     * @param word the buffer holding the word
+     * @param offset the index of the first byte of the word
+     * @param length the number of bytes in the word
+     * @param count the count of the word
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the word does not sort after the previous one
+     */
+    public void add(byte[] word, int offset, int length, long count) throws IOException {
+        if (previousLength >= 0
+                && Arrays.compareUnsigned(previous, 0, previousLength, word, offset, offset + length) >= 0) {
+            throw new IllegalArgumentException("Words must be added in increasing order: "
+                    + new String(word, offset, length) + " after " + new String(previous, 0, previousLength));
+        }
+
+        int shared = 0;
+        if (wordCount % IndexFormat.BLOCK_SIZE == 0) {
+            // A block starts with the full word, so a lookup can begin decoding there
+            int block = (int) (wordCount / IndexFormat.BLOCK_SIZE);
+            if (2 * block + 1 >= blockOffsets.length) {
+                blockOffsets = Arrays.copyOf(blockOffsets, blockOffsets.length * 2);
+            }
+            blockOffsets[2 * block] = dictionaryPosition;
+            blockOffsets[2 * block + 1] = countsPosition;
+        } else {
+            // Strict ordering guarantees a mismatch, at the latest where the previous word ends
+            shared = Arrays.mismatch(previous, 0, previousLength, word, offset, offset + length);
+            dictionaryPosition += Varint.write(dictionary, shared);
+        }
+        int suffixLength = length - shared;
+        dictionaryPosition += Varint.write(dictionary, suffixLength);
+        dictionary.write(word, offset + shared, suffixLength);
+        dictionaryPosition += suffixLength;
+
+        // The shared prefix is already in place, so only the suffix has to be copied
+        System.arraycopy(word, offset + shared, ensurePrevious(length), shared, suffixLength);
+        previousLength = length;
+
+        countsPosition += Varint.write(counts, count);
+        wordCount++;
+        totalCount += count;
+    }
+
+    /**
+     * Appends the counts column and the block index, then fills in the header.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            counts.close();
+            dictionary.close();
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                long countsOffset = dictionaryPosition;
+                try (FileChannel countsChannel = FileChannel.open(countsFile, StandardOpenOption.READ)) {
+                    for (long copied = 0; copied < countsPosition; ) {
+                        copied += countsChannel.transferTo(copied, countsPosition - copied,
+                                channel.position(countsOffset + copied));
+                    }
+                }
+
+                long blockIndexOffset = countsOffset + countsPosition;
+                int blocks = (int) ((wordCount + IndexFormat.BLOCK_SIZE - 1) / IndexFormat.BLOCK_SIZE);
+                ByteBuffer blockIndex = ByteBuffer.allocate(blocks * IndexFormat.BLOCK_ENTRY_SIZE);
+                for (int block = 0; block < blocks; block++) {
+                    blockIndex.putLong(blockOffsets[2 * block]);
+                    blockIndex.putLong(countsOffset + blockOffsets[2 * block + 1]);
+                }
+                writeFully(channel, blockIndex.flip(), blockIndexOffset);
+
+                ByteBuffer header = ByteBuffer.allocate(IndexFormat.HEADER_SIZE)
+                        .putInt(IndexFormat.MAGIC)
+                        .putInt(IndexFormat.VERSION)
+                        .putLong(wordCount)
+                        .putLong(totalCount)
+                        .putInt(IndexFormat.BLOCK_SIZE)
+                        .putInt(0)
+                        .putLong(countsOffset)
+                        .putLong(blockIndexOffset);
+                writeFully(channel, header.flip(), 0);
+            }
+        } finally {
+            Files.deleteIfExists(countsFile);
+        }
+    }
+
+    private byte[] ensurePrevious(int length) {
+        if (previous.length < length) {
+            previous = Arrays.copyOf(previous, Math.max(length, previous.length * 2));
+        }
+        return previous;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package edu.pro.metrics;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Follows garbage collections through the JVM's MXBean notifications. Every collection
+ * reports its pause and the heap use right before it, which gives the collection count,
+ * the pause times and the peak heap use. Allocation is measured per thread instead, see
+ * {@link ThreadAllocation}.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class GcMonitor
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class GcMonitor implements AutoCloseable {
+
+    private final LongAdder collections = new LongAdder();
+    private final LongAdder pauseMillis = new LongAdder();
+    private final LongAccumulator maxPauseMillis = new LongAccumulator(Math::max, 0);
+    private final AtomicLong peakHeapUsed = new AtomicLong(heapUsed());
+
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener listener = this::onNotification;
+
+    /**
+     * Starts following collections.
+     */
+    public GcMonitor() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) collector;
+                emitter.addNotificationListener(listener, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of collections since the start.
+     *
+     * @return the collection count
+     */
+    public long getCollections() {
+        return collections.sum();
+    }
+
+    /**
+     * Gets the total duration of all collections since the start.
+     *
+     * @return the total pause time in milliseconds
+     */
+    public long getPauseMillis() {
+        return pauseMillis.sum();
+    }
+
+    /**
+     * Gets the duration of the longest collection since the start.
+     *
+     * @return the longest pause in milliseconds
+     */
+    public long getMaxPauseMillis() {
+        return maxPauseMillis.get();
+    }
+
+    /**
+     * Gets the highest heap use seen right before a collection or on a call to this method.
+     *
+     * @return the peak heap use in bytes
+     */
+    public long getPeakHeapUsed() {
+        return peakHeapUsed.accumulateAndGet(heapUsed(), Math::max);
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(listener);
+            } catch (ListenerNotFoundException e) {
+                // Already removed, nothing to do
+            }
+        }
+    }
+
+    private void onNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GcInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData()).getGcInfo();
+        collections.increment();
+        pauseMillis.add(info.getDuration());
+        maxPauseMillis.accumulate(info.getDuration());
+        peakHeapUsed.accumulateAndGet(sum(info.getMemoryUsageBeforeGc().values()), Math::max);
+    }
+
+    private static long sum(Iterable<MemoryUsage> usages) {
+        long used = 0;
+        for (MemoryUsage usage : usages) {
+            used += usage.getUsed();
+        }
+        return used;
+    }
+
+    private static long heapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,21 @@
+package edu.pro.metrics;
+
+/**
+ * Parts of a counting run whose time is measured separately.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class Phase
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public enum Phase {
+    // Reading or mapping the input, including page faults on mapped files
+    IO,
+    // Finding the words and folding their case
+    TOKENIZE,
+    // Looking the words up and incrementing their counts
+    COUNT,
+    // Selecting the most frequent words
+    RANK
+}
@@ -0,0 +1,245 @@
+package edu.pro.metrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Measurements of one counting run: throughput, time and allocation per {@link Phase}, table
+ * size and garbage collection. Counters are meant to be updated once per chunk or batch rather
+ * than once per word, and may be updated from several threads. Allocation is the sum of the
+ * {@link ThreadAllocation} differences that the threads doing the work report per phase.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class RunMetrics
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class RunMetrics implements AutoCloseable {
+
+    private final String mode;
+    private final long startNanos = System.nanoTime();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder tokens = new LongAdder();
+    private final Map<Phase, LongAdder> phaseNanos = new EnumMap<>(Phase.class);
+    private final Map<Phase, LongAdder> phaseAllocatedBytes = new EnumMap<>(Phase.class);
+    private final AtomicLong peakDistinctWords = new AtomicLong();
+    private final AtomicLong peakTableBytes = new AtomicLong();
+    private final GcMonitor gc = new GcMonitor();
+
+    private volatile long finishNanos;
+    private ScheduledExecutorService console;
+
+    /**
+     * Starts measuring a run.
+     *
+     * @param mode the name of the counting mode, recorded in the report
+     */
+    public RunMetrics(String mode) {
+        this.mode = mode;
+        ThreadAllocation.enable();
+        for (Phase phase : Phase.values()) {
+            phaseNanos.put(phase, new LongAdder());
+            phaseAllocatedBytes.put(phase, new LongAdder());
+        }
+    }
+
+    /**
+     * Records input bytes consumed.
+     *
+     * @param count the number of bytes
+     */
+    public void addBytes(long count) {
+        bytes.add(count);
+    }
+
+    /**
+     * Records words found.
+     *
+     * @param count the number of words
+     */
+    public void addTokens(long count) {
+        tokens.add(count);
+    }
+
+    /**
+     * Records time spent in a phase.
+     *
+     * @param phase the phase
+     * @param nanos the time in nanoseconds
+     */
+    public void addTime(Phase phase, long nanos) {
+        phaseNanos.get(phase).add(nanos);
+    }
+
+    /**
+     * Records bytes allocated on the heap in a phase, by the thread doing its work.
+     *
+     * @param phase the phase
+     * @param count the number of bytes, usually the difference of two {@link ThreadAllocation}
+     *              readings on the same thread
+     */
+    public void addAllocation(Phase phase, long count) {
+        phaseAllocatedBytes.get(phase).add(count);
+    }
+
+    /**
+     * Records the current size of the counting table; the peak is kept.
+     *
+     * @param distinctWords the number of distinct words in the table
+     * @param tableBytes the estimated size of the table in bytes
+     */
+    public void tableSize(long distinctWords, long tableBytes) {
+        peakDistinctWords.accumulateAndGet(distinctWords, Math::max);
+        peakTableBytes.accumulateAndGet(tableBytes, Math::max);
+    }
+
+    /**
+     * Prints a one-line progress summary on a background thread until {@link #close()}.
+     *
+     * @param intervalMillis the time between two lines
+     * @param output receives every line
+     */
+    public synchronized void startConsole(long intervalMillis, Consumer<String> output) {
+        console = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-console");
+            thread.setDaemon(true);
+            return thread;
+        });
+        console.scheduleAtFixedRate(() -> output.accept(progressLine()), intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Marks the end of the run. Rates and durations in the reports refer to this moment.
+     */
+    public void finish() {
+        finishNanos = System.nanoTime();
+    }
+
+    /**
+     * Describes the progress so far in one line.
+     *
+     * @return the progress line
+     */
+    public String progressLine() {
+        double seconds = elapsedNanos() / 1e9;
+        return String.format(Locale.ROOT,
+                "[metrics] %.1f s  %,.1f MB (%,.1f MB/s)  %,d words (%,.0f/s)  %,d distinct  gc %d (%d ms)  alloc %,.1f MB",
+                seconds, bytes.sum() / 1e6, bytes.sum() / 1e6 / seconds, tokens.sum(), tokens.sum() / seconds,
+                peakDistinctWords.get(), gc.getCollections(), gc.getPauseMillis(), allocatedBytes() / 1e6);
+    }
+
+    /**
+     * Describes the finished run in a few human-readable lines.
+     *
+     * @return the summary
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder(progressLine().replace("[metrics] ", "Metrics: "));
+        summary.append("\nTime split:");
+        for (Phase phase : Phase.values()) {
+            summary.append(' ').append(phase.name().toLowerCase(Locale.ROOT)).append(' ')
+                    .append(TimeUnit.NANOSECONDS.toMillis(phaseNanos.get(phase).sum())).append(" ms");
+        }
+        summary.append("\nAllocation split:");
+        for (Phase phase : Phase.values()) {
+            summary.append(' ').append(phase.name().toLowerCase(Locale.ROOT)).append(' ')
+                    .append(String.format(Locale.ROOT, "%,.1f MB", phaseAllocatedBytes.get(phase).sum() / 1e6));
+        }
+        summary.append("\nPeak table: ").append(peakDistinctWords.get()).append(" words, ")
+                .append(peakTableBytes.get()).append(" bytes; peak heap ").append(gc.getPeakHeapUsed())
+                .append(" bytes; longest GC pause ").append(gc.getMaxPauseMillis()).append(" ms");
+        return summary.toString();
+    }
+
+    /**
+     * Writes the measurements as a JSON object.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeJson(Path file) throws IOException {
+        Files.writeString(file, toJson());
+    }
+
+    /**
+     * Formats the measurements as a JSON object.
+     *
+     * @return the JSON text
+     */
+    public String toJson() {
+        long elapsed = elapsedNanos();
+        double seconds = elapsed / 1e9;
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"mode\": \"").append(mode).append("\",\n");
+        json.append("  \"elapsedMillis\": ").append(TimeUnit.NANOSECONDS.toMillis(elapsed)).append(",\n");
+        json.append("  \"bytesRead\": ").append(bytes.sum()).append(",\n");
+        json.append("  \"tokens\": ").append(tokens.sum()).append(",\n");
+        json.append("  \"distinctWords\": ").append(peakDistinctWords.get()).append(",\n");
+        json.append("  \"bytesPerSecond\": ").append(rate(bytes.sum(), seconds)).append(",\n");
+        json.append("  \"tokensPerSecond\": ").append(rate(tokens.sum(), seconds)).append(",\n");
+        json.append("  \"distinctWordsPerSecond\": ").append(rate(peakDistinctWords.get(), seconds)).append(",\n");
+        json.append("  \"phaseMillis\": {");
+        String separator = "";
+        for (Phase phase : Phase.values()) {
+            json.append(separator).append('"').append(phase.name().toLowerCase(Locale.ROOT)).append("\": ")
+                    .append(TimeUnit.NANOSECONDS.toMillis(phaseNanos.get(phase).sum()));
+            separator = ", ";
+        }
+        json.append("},\n");
+        json.append("  \"phaseAllocatedBytes\": {");
+        separator = "";
+        for (Phase phase : Phase.values()) {
+            json.append(separator).append('"').append(phase.name().toLowerCase(Locale.ROOT)).append("\": ")
+                    .append(phaseAllocatedBytes.get(phase).sum());
+            separator = ", ";
+        }
+        json.append("},\n");
+        json.append("  \"peakTableBytes\": ").append(peakTableBytes.get()).append(",\n");
+        json.append("  \"peakHeapUsedBytes\": ").append(gc.getPeakHeapUsed()).append(",\n");
+        json.append("  \"gc\": {\"collections\": ").append(gc.getCollections())
+                .append(", \"pauseMillis\": ").append(gc.getPauseMillis())
+                .append(", \"maxPauseMillis\": ").append(gc.getMaxPauseMillis()).append("},\n");
+        json.append("  \"allocatedBytes\": ").append(allocatedBytes()).append('\n');
+        return json.append("}\n").toString();
+    }
+
+    /**
+     * Stops the console thread and the GC listeners.
+     */
+    @Override
+    public synchronized void close() {
+        if (console != null) {
+            console.shutdownNow();
+        }
+        gc.close();
+    }
+
+    private long allocatedBytes() {
+        long total = 0;
+        for (LongAdder allocated : phaseAllocatedBytes.values()) {
+            total += allocated.sum();
+        }
+        return total;
+    }
+
+    private long elapsedNanos() {
+        long end = finishNanos != 0 ? finishNanos : System.nanoTime();
+        return Math.max(1, end - startNanos);
+    }
+
+    private static long rate(long amount, double seconds) {
+        return Math.round(amount / seconds);
+    }
+}
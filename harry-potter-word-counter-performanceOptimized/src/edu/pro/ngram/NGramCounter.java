@@ -0,0 +1,155 @@
+package edu.pro.ngram;
+
+import edu.pro.Word;
+import edu.pro.count.Footprint;
+import edu.pro.count.WordCountTable;
+import edu.pro.rank.TopK;
+import edu.pro.tokenize.TokenSink;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the n-grams of a token stream. Every word is looked up in a {@link WordCountTable},
+ * which gives it a dense id and counts it as a unigram at the same time. The ids of the last
+ * n words are kept in a rolling window, and each full window is counted in an
+ * {@link NGramTable}. Words only become strings when a ranked n-gram is reported.
+ *
+ * <p>The token stream carries no sentence boundaries, so n-grams run across lines and
+ * punctuation just like the word counts do.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class NGramCounter
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class NGramCounter implements TokenSink {
+
+    private final WordCountTable dictionary;
+    private final NGramTable grams;
+
+    // Ring of the last n word ids; next is where the following id goes
+    private final int[] window;
+    private int next;
+    private long seen;
+
+    /**
+     * Creates an empty counter with its own dictionary.
+     *
+     * @param n the number of words per n-gram
+     */
+    public NGramCounter(int n) {
+        this(n, new WordCountTable());
+    }
+
+    /**
+     * Creates an empty counter that adds its words to an existing dictionary.
+     *
+     * @param n the number of words per n-gram
+     * @param dictionary the table giving every word its id and unigram count
+     */
+    public NGramCounter(int n, WordCountTable dictionary) {
+        this.dictionary = dictionary;
+        this.grams = new NGramTable(n);
+        this.window = new int[n];
+    }
+
+    @Override
+    public void accept(byte[] buffer, int offset, int length) {
+        window[next] = dictionary.add(buffer, offset, length, 1);
+        next = next + 1 == window.length ? 0 : next + 1;
+        // Once the window is full, the oldest id sits where the next one will go
+        if (++seen >= window.length) {
+            grams.add(window, next);
+        }
+    }
+
+    /**
+     * Gets the dictionary holding the words and their unigram counts.
+     *
+     * @return the dictionary
+     */
+    public WordCountTable dictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Gets the table of the counted n-grams.
+     *
+     * @return the n-gram table
+     */
+    public NGramTable grams() {
+        return grams;
+    }
+
+    /**
+     * Selects the most frequent n-grams, ties broken alphabetically word by word. Only the
+     * selected n-grams are turned into text, with their words separated by spaces.
+     *
+     * @param k the maximum number of n-grams to return
+     * @return the selected n-grams, most frequent first
+     */
+    public List<Word> top(int k) {
+        TopK topK = new TopK(k, this::compareGrams);
+        for (int id = 0; id < grams.size(); id++) {
+            topK.offer(id, grams.count(id));
+        }
+
+        List<Word> words = new ArrayList<>(topK.size());
+        for (int id : topK.ids()) {
+            words.add(new Word(text(id), grams.count(id)));
+        }
+        return words;
+    }
+
+    /**
+     * Gets the text of an n-gram.
+     *
+     * @param id the id of the n-gram
+     * @return the words of the n-gram separated by spaces
+     */
+    public String text(int id) {
+        StringBuilder text = new StringBuilder();
+        for (int position = 0; position < grams.n(); position++) {
+            if (position > 0) {
+                text.append(' ');
+            }
+            text.append(dictionary.word(grams.word(id, position)));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Describes the footprint of the n-gram table next to a {@code HashMap} keyed by the
+     * n-grams as joined strings.
+     *
+     * @return a human readable report
+     */
+    public String footprint() {
+        int size = Math.max(1, grams.size());
+        long tableBytes = grams.footprintBytes();
+        long mapBytes = Footprint.hashMapBuckets(grams.size());
+        for (int id = 0; id < grams.size(); id++) {
+            int length = grams.n() - 1;
+            for (int position = 0; position < grams.n(); position++) {
+                length += dictionary.wordLength(grams.word(id, position));
+            }
+            mapBytes += Footprint.hashMapEntry(length, grams.count(id));
+        }
+        return "Distinct " + grams.n() + "-grams: " + grams.size() + " over " + dictionary.size() + " words\n"
+                + "NGramTable: " + tableBytes + " bytes (" + tableBytes / size + " bytes per n-gram)\n"
+                + "HashMap<String, Integer> of joined n-grams (estimated): " + mapBytes + " bytes ("
+                + mapBytes / size + " bytes per n-gram)";
+    }
+
+    private int compareGrams(int id, int otherId) {
+        for (int position = 0; position < grams.n(); position++) {
+            int result = dictionary.compareWords(grams.word(id, position), grams.word(otherId, position));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+}
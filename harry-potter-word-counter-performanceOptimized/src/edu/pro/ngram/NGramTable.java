@@ -0,0 +1,173 @@
+package edu.pro.ngram;
+
+import edu.pro.count.Footprint;
+import edu.pro.count.SlotHash;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table counting n-grams of word ids. The ids of every distinct n-gram
+ * are packed into one shared {@code int} array, n per entry, so an n-gram costs
+ * {@code 4 * n} bytes for its words plus 16 bytes of table overhead, and counting a known
+ * n-gram allocates nothing.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class NGramTable
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class NGramTable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int n;
+
+    // Slots hold id + 1 so that zero can mark an empty slot
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+    // Per-id columns, and the word ids of n-gram i at grams[i * n, (i + 1) * n)
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int[] grams;
+    private int size;
+
+    /**
+     * Creates an empty table.
+     *
+     * @param n the number of words per n-gram
+     */
+    public NGramTable(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("N must be positive: " + n);
+        }
+        this.n = n;
+        this.grams = new int[INITIAL_CAPACITY * n];
+    }
+
+    /**
+     * Counts the n-gram held in a ring of word ids.
+     *
+     * @param ring the ring of the last n word ids
+     * @param start the index of the first word of the n-gram in the ring
+     * @return the id of the n-gram
+     */
+    public int add(int[] ring, int start) {
+        int hash = hash(ring, start);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                id = insert(ring, start, hash);
+                slots[slot] = id + 1;
+                // Keep the load factor at most one half, so probe sequences stay short
+                if (size * 2 > slots.length) {
+                    rehash(slots.length * 2);
+                }
+                return id;
+            }
+            if (hashes[id] == hash && matches(id, ring, start)) {
+                counts[id]++;
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of words per n-gram.
+     *
+     * @return n
+     */
+    public int n() {
+        return n;
+    }
+
+    /**
+     * Gets the number of distinct n-grams.
+     *
+     * @return the number of distinct n-grams
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the count of an n-gram.
+     *
+     * @param id the id of the n-gram
+     * @return the number of times the n-gram was counted
+     */
+    public int count(int id) {
+        return counts[id];
+    }
+
+    /**
+     * Gets a word of an n-gram.
+     *
+     * @param id the id of the n-gram
+     * @param position the position of the word in the n-gram, below n
+     * @return the id of the word
+     */
+    public int word(int id, int position) {
+        return grams[id * n + position];
+    }
+
+    /**
+     * Estimates the heap used by the table, including the spare capacity of its arrays.
+     *
+     * @return the estimated size in bytes
+     */
+    public long footprintBytes() {
+        return Footprint.array(slots.length, 4) + Footprint.array(hashes.length, 4)
+                + Footprint.array(counts.length, 4) + Footprint.array(grams.length, 4);
+    }
+
+    private int insert(int[] ring, int start, int hash) {
+        if (size == hashes.length) {
+            int capacity = size * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            grams = Arrays.copyOf(grams, capacity * n);
+        }
+        int base = size * n;
+        for (int i = 0; i < n; i++) {
+            grams[base + i] = ring[(start + i) % n];
+        }
+
+        int id = size++;
+        hashes[id] = hash;
+        counts[id] = 1;
+        return id;
+    }
+
+    private void rehash(int capacity) {
+        int[] rehashed = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (rehashed[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            rehashed[slot] = id + 1;
+        }
+        slots = rehashed;
+    }
+
+    private boolean matches(int id, int[] ring, int start) {
+        int base = id * n;
+        for (int i = 0; i < n; i++) {
+            if (grams[base + i] != ring[(start + i) % n]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int hash(int[] ring, int start) {
+        int h = 1;
+        for (int i = 0; i < n; i++) {
+            h = 31 * h + ring[(start + i) % n];
+        }
+        return SlotHash.spread(h);
+    }
+}
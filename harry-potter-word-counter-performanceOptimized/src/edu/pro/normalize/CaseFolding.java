@@ -0,0 +1,49 @@
+package edu.pro.normalize;
+
+/**
+ * Normalizer folding every letter to lower case. Characters are mapped through upper to lower
+ * case, so variants such as the final sigma fold to the same letter. The mapping of the Basic
+ * Multilingual Plane is precomputed in a 128 KB table, so folding a char is one lookup;
+ * characters outside it are folded as code points.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class CaseFolding
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class CaseFolding implements Normalizer {
+
+    public static final String NAME = "fold";
+
+    // Folded form of every char of the Basic Multilingual Plane
+    private static final char[] FOLDED = new char[0x10000];
+
+    static {
+        for (int value = 0; value < FOLDED.length; value++) {
+            FOLDED[value] = (char) fold(value);
+        }
+    }
+
+    @Override
+    public int normalize(char[] buffer, int length) {
+        for (int i = 0; i < length; i++) {
+            char value = buffer[i];
+            if (Character.isHighSurrogate(value) && i + 1 < length && Character.isLowSurrogate(buffer[i + 1])) {
+                int folded = fold(Character.toCodePoint(value, buffer[i + 1]));
+                // A pair only folds to a pair, so the word keeps its length
+                Character.toChars(folded, buffer, i);
+                i++;
+            } else {
+                buffer[i] = FOLDED[value];
+            }
+        }
+        return length;
+    }
+
+    // Folds a code point, keeping it if its folded form would need a different number of chars
+    private static int fold(int codePoint) {
+        int folded = Character.toLowerCase(Character.toUpperCase(codePoint));
+        return Character.charCount(folded) == Character.charCount(codePoint) ? folded : codePoint;
+    }
+}
@@ -0,0 +1,25 @@
+package edu.pro.normalize;
+
+/**
+ * One stage of word normalization, applied to a word held in a reusable char buffer before it
+ * is counted. Stages work in place, so a chain of them allocates nothing per word.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class Normalizer
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+@FunctionalInterface
+public interface Normalizer {
+
+    /**
+     * Normalizes the word held in {@code buffer[0, length)} in place. The word may get
+     * shorter, but not longer than it was.
+     *
+     * @param buffer the buffer holding the word, modified in place
+     * @param length the number of chars in the word
+     * @return the new number of chars in the word, or zero to drop the word
+     */
+    int normalize(char[] buffer, int length);
+}
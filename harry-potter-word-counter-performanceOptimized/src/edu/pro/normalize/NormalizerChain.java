@@ -0,0 +1,65 @@
+package edu.pro.normalize;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Normalizer running several stages in order. A word dropped by one stage is not passed to
+ * the following ones.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class NormalizerChain
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class NormalizerChain implements Normalizer {
+
+    private final Normalizer[] stages;
+
+    /**
+     * Creates a chain.
+     *
+     * @param stages the stages, in the order they run
+     */
+    public NormalizerChain(List<Normalizer> stages) {
+        this.stages = stages.toArray(new Normalizer[0]);
+    }
+
+    /**
+     * Creates a chain from a comma-separated list of stage names: {@code fold},
+     * {@code stop} and {@code stem}. An empty list keeps the words as they are. Stages keep
+     * state while they work, so every tokenizer needs a chain of its own.
+     *
+     * @param names the names of the stages, in the order they run
+     * @param stopWords the words removed by the {@code stop} stage
+     * @return the chain
+     * @throws IllegalArgumentException if a name is unknown
+     */
+    public static NormalizerChain parse(String names, StopWords stopWords) {
+        List<Normalizer> stages = new ArrayList<>();
+        for (String name : names.split(",")) {
+            switch (name.trim().toLowerCase(Locale.ROOT)) {
+                case "" -> {
+                }
+                case CaseFolding.NAME -> stages.add(new CaseFolding());
+                case StopWords.NAME -> stages.add(stopWords);
+                case PorterStemmer.NAME -> stages.add(new PorterStemmer());
+                default -> throw new IllegalArgumentException("Unknown normalizer: " + name);
+            }
+        }
+        return new NormalizerChain(stages);
+    }
+
+    @Override
+    public int normalize(char[] buffer, int length) {
+        for (Normalizer stage : stages) {
+            length = stage.normalize(buffer, length);
+            if (length == 0) {
+                return 0;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,346 @@
+package edu.pro.normalize;
+
+/**
+ * Normalizer reducing English words to their stem with the Porter (1980) algorithm, working
+ * in place on the char buffer. Only words made of the lower-case letters {@code a-z} are
+ * stemmed; other words, such as those with apostrophes or non-English letters, are kept as
+ * they are. Run it after case folding and stop word removal.
+ *
+ * <p>The stemmer keeps the word being stemmed in its fields, so an instance must not be
+ * shared between threads.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class PorterStemmer
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class PorterStemmer implements Normalizer {
+
+    public static final String NAME = "stem";
+
+    // The word being stemmed, the index of its last char and a general index into it
+    private char[] word;
+    private int end;
+    private int stemEnd;
+
+    @Override
+    public int normalize(char[] buffer, int length) {
+        // Words of one or two letters are left alone, as in the original algorithm
+        if (length <= 2) {
+            return length;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer[i] < 'a' || buffer[i] > 'z') {
+                return length;
+            }
+        }
+
+        word = buffer;
+        end = length - 1;
+        step1ab();
+        if (end > 0) {
+            step1c();
+            step2();
+            step3();
+            step4();
+            step5();
+        }
+        word = null;
+        return end + 1;
+    }
+
+    // Checks whether word[i] is a consonant; y is one unless it follows a consonant
+    private boolean isConsonant(int i) {
+        switch (word[i]) {
+            case 'a', 'e', 'i', 'o', 'u':
+                return false;
+            case 'y':
+                return i == 0 || !isConsonant(i - 1);
+            default:
+                return true;
+        }
+    }
+
+    // Counts the vowel-consonant sequences of word[0, stemEnd]: [C](VC)^m[V] has measure m
+    private int measure() {
+        int count = 0;
+        int i = 0;
+        while (true) {
+            if (i > stemEnd) {
+                return count;
+            }
+            if (!isConsonant(i)) {
+                break;
+            }
+            i++;
+        }
+        i++;
+        while (true) {
+            while (true) {
+                if (i > stemEnd) {
+                    return count;
+                }
+                if (isConsonant(i)) {
+                    break;
+                }
+                i++;
+            }
+            i++;
+            count++;
+            while (true) {
+                if (i > stemEnd) {
+                    return count;
+                }
+                if (!isConsonant(i)) {
+                    break;
+                }
+                i++;
+            }
+            i++;
+        }
+    }
+
+    // Checks whether word[0, stemEnd] contains a vowel
+    private boolean hasVowelInStem() {
+        for (int i = 0; i <= stemEnd; i++) {
+            if (!isConsonant(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Checks whether word[i - 1, i] is a double consonant
+    private boolean isDoubleConsonant(int i) {
+        return i >= 1 && word[i] == word[i - 1] && isConsonant(i);
+    }
+
+    // Checks whether word[i - 2, i] is consonant-vowel-consonant, the last one not w, x or y
+    private boolean isConsonantVowelConsonant(int i) {
+        if (i < 2 || !isConsonant(i) || isConsonant(i - 1) || !isConsonant(i - 2)) {
+            return false;
+        }
+        char last = word[i];
+        return last != 'w' && last != 'x' && last != 'y';
+    }
+
+    // Checks whether word[0, end] ends with the suffix, and if so sets stemEnd before it
+    private boolean endsWith(String suffix) {
+        int length = suffix.length();
+        if (suffix.charAt(length - 1) != word[end] || length > end + 1) {
+            return false;
+        }
+        int start = end - length + 1;
+        for (int i = 0; i < length; i++) {
+            if (word[start + i] != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        stemEnd = end - length;
+        return true;
+    }
+
+    // Replaces word[stemEnd + 1, end] with the replacement
+    private void setTo(String replacement) {
+        replacement.getChars(0, replacement.length(), word, stemEnd + 1);
+        end = stemEnd + replacement.length();
+    }
+
+    // Replaces the suffix matched last if the stem before it has a positive measure
+    private void replaceIfMeasured(String replacement) {
+        if (measure() > 0) {
+            setTo(replacement);
+        }
+    }
+
+    // Removes plurals and -ed or -ing: caresses -> caress, ponies -> poni, agreed -> agree, hopping -> hop
+    private void step1ab() {
+        if (word[end] == 's') {
+            if (endsWith("sses")) {
+                end -= 2;
+            } else if (endsWith("ies")) {
+                setTo("i");
+            } else if (word[end - 1] != 's') {
+                end--;
+            }
+        }
+        if (endsWith("eed")) {
+            if (measure() > 0) {
+                end--;
+            }
+        } else if ((endsWith("ed") || endsWith("ing")) && hasVowelInStem()) {
+            end = stemEnd;
+            if (endsWith("at")) {
+                setTo("ate");
+            } else if (endsWith("bl")) {
+                setTo("ble");
+            } else if (endsWith("iz")) {
+                setTo("ize");
+            } else if (isDoubleConsonant(end)) {
+                end--;
+                char last = word[end];
+                if (last == 'l' || last == 's' || last == 'z') {
+                    end++;
+                }
+            } else {
+                stemEnd = end;
+                if (measure() == 1 && isConsonantVowelConsonant(end)) {
+                    setTo("e");
+                }
+            }
+        }
+    }
+
+    // Turns a terminal y into i when there is another vowel in the stem: happy -> happi
+    private void step1c() {
+        if (endsWith("y") && hasVowelInStem()) {
+            word[end] = 'i';
+        }
+    }
+
+    // Maps double suffixes to single ones: relational -> relate, digitizer -> digitize
+    private void step2() {
+        switch (word[end - 1]) {
+            case 'a' -> {
+                if (endsWith("ational")) {
+                    replaceIfMeasured("ate");
+                } else if (endsWith("tional")) {
+                    replaceIfMeasured("tion");
+                }
+            }
+            case 'c' -> {
+                if (endsWith("enci")) {
+                    replaceIfMeasured("ence");
+                } else if (endsWith("anci")) {
+                    replaceIfMeasured("ance");
+                }
+            }
+            case 'e' -> {
+                if (endsWith("izer")) {
+                    replaceIfMeasured("ize");
+                }
+            }
+            case 'l' -> {
+                if (endsWith("bli")) {
+                    replaceIfMeasured("ble");
+                } else if (endsWith("alli")) {
+                    replaceIfMeasured("al");
+                } else if (endsWith("entli")) {
+                    replaceIfMeasured("ent");
+                } else if (endsWith("eli")) {
+                    replaceIfMeasured("e");
+                } else if (endsWith("ousli")) {
+                    replaceIfMeasured("ous");
+                }
+            }
+            case 'o' -> {
+                if (endsWith("ization")) {
+                    replaceIfMeasured("ize");
+                } else if (endsWith("ation")) {
+                    replaceIfMeasured("ate");
+                } else if (endsWith("ator")) {
+                    replaceIfMeasured("ate");
+                }
+            }
+            case 's' -> {
+                if (endsWith("alism")) {
+                    replaceIfMeasured("al");
+                } else if (endsWith("iveness")) {
+                    replaceIfMeasured("ive");
+                } else if (endsWith("fulness")) {
+                    replaceIfMeasured("ful");
+                } else if (endsWith("ousness")) {
+                    replaceIfMeasured("ous");
+                }
+            }
+            case 't' -> {
+                if (endsWith("aliti")) {
+                    replaceIfMeasured("al");
+                } else if (endsWith("iviti")) {
+                    replaceIfMeasured("ive");
+                } else if (endsWith("biliti")) {
+                    replaceIfMeasured("ble");
+                }
+            }
+            case 'g' -> {
+                if (endsWith("logi")) {
+                    replaceIfMeasured("log");
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    // Handles -ic-, -full, -ness and the like: triplicate -> triplic, hopeful -> hope
+    private void step3() {
+        switch (word[end]) {
+            case 'e' -> {
+                if (endsWith("icate")) {
+                    replaceIfMeasured("ic");
+                } else if (endsWith("ative")) {
+                    replaceIfMeasured("");
+                } else if (endsWith("alize")) {
+                    replaceIfMeasured("al");
+                }
+            }
+            case 'i' -> {
+                if (endsWith("iciti")) {
+                    replaceIfMeasured("ic");
+                }
+            }
+            case 'l' -> {
+                if (endsWith("ical")) {
+                    replaceIfMeasured("ic");
+                } else if (endsWith("ful")) {
+                    replaceIfMeasured("");
+                }
+            }
+            case 's' -> {
+                if (endsWith("ness")) {
+                    replaceIfMeasured("");
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    // Removes -ant, -ence and the like from stems of measure above one: adjustment -> adjust
+    private void step4() {
+        boolean matched = switch (word[end - 1]) {
+            case 'a' -> endsWith("al");
+            case 'c' -> endsWith("ance") || endsWith("ence");
+            case 'e' -> endsWith("er");
+            case 'i' -> endsWith("ic");
+            case 'l' -> endsWith("able") || endsWith("ible");
+            case 'n' -> endsWith("ant") || endsWith("ement") || endsWith("ment") || endsWith("ent");
+            case 'o' -> endsWith("ion") && stemEnd >= 0 && (word[stemEnd] == 's' || word[stemEnd] == 't')
+                    || endsWith("ou");
+            case 's' -> endsWith("ism");
+            case 't' -> endsWith("ate") || endsWith("iti");
+            case 'u' -> endsWith("ous");
+            case 'v' -> endsWith("ive");
+            case 'z' -> endsWith("ize");
+            default -> false;
+        };
+        if (matched && measure() > 1) {
+            end = stemEnd;
+        }
+    }
+
+    // Removes a final -e and turns -ll into -l on long stems: probate -> probat, controll -> control
+    private void step5() {
+        stemEnd = end;
+        if (word[end] == 'e') {
+            int measure = measure();
+            if (measure > 1 || measure == 1 && !isConsonantVowelConsonant(end - 1)) {
+                end--;
+            }
+        }
+        if (word[end] == 'l' && isDoubleConsonant(end) && measure() > 1) {
+            end--;
+        }
+    }
+}
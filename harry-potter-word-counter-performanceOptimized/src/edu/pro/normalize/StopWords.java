@@ -0,0 +1,140 @@
+package edu.pro.normalize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Normalizer dropping stop words. The words live in an open-addressing table probed with the
+ * {@code String} hash of the char slice, so a lookup creates no string. It should run after
+ * case folding, because the table is matched exactly. The set never changes, so one instance
+ * can be shared by every tokenizer.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class StopWords
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class StopWords implements Normalizer {
+
+    public static final String NAME = "stop";
+
+    // Common English function words, including the contractions the Unicode tokenizer keeps whole
+    private static final String ENGLISH = "i me my myself we our ours ourselves you you're you've you'll you'd "
+            + "your yours yourself yourselves he him his himself she she's her hers herself it it's its itself "
+            + "they them their theirs themselves what which who whom this that that'll these those am is are "
+            + "was were be been being have has had having do does did doing a an the and but if or because as "
+            + "until while of at by for with about against between into through during before after above "
+            + "below to from up down in out on off over under again further then once here there when where "
+            + "why how all any both each few more most other some such no nor not only own same so than too "
+            + "very s t can will just don don't should should've now d ll m o re ve y ain aren aren't couldn "
+            + "couldn't didn didn't doesn doesn't hadn hadn't hasn hasn't haven haven't isn isn't ma mightn "
+            + "mightn't mustn mustn't needn needn't shan shan't shouldn shouldn't wasn wasn't weren weren't "
+            + "won won't wouldn wouldn't";
+
+    private final String[] slots;
+    private final int mask;
+    private final int size;
+
+    /**
+     * Creates a stop word set.
+     *
+     * @param words the words to drop, in their normalized form
+     */
+    public StopWords(Collection<String> words) {
+        int capacity = Integer.highestOneBit(Math.max(4, words.size() * 2) - 1) << 1;
+        this.slots = new String[capacity];
+        this.mask = capacity - 1;
+        int added = 0;
+        for (String word : words) {
+            int slot = word.hashCode() & mask;
+            while (slots[slot] != null && !slots[slot].equals(word)) {
+                slot = (slot + 1) & mask;
+            }
+            if (slots[slot] == null && !word.isEmpty()) {
+                slots[slot] = word;
+                added++;
+            }
+        }
+        this.size = added;
+    }
+
+    /**
+     * Gets the built-in English stop words.
+     *
+     * @return the stop word set
+     */
+    public static StopWords english() {
+        return new StopWords(List.of(ENGLISH.split(" ")));
+    }
+
+    /**
+     * Reads a stop word set from a UTF-8 file with one word per line. Blank lines and lines
+     * starting with {@code #} are skipped.
+     *
+     * @param file the file to read
+     * @return the stop word set
+     * @throws IOException if the file cannot be read
+     */
+    public static StopWords load(Path file) throws IOException {
+        List<String> words = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String word = line.strip();
+            if (!word.isEmpty() && !word.startsWith("#")) {
+                words.add(word);
+            }
+        }
+        return new StopWords(words);
+    }
+
+    /**
+     * Gets the number of stop words.
+     *
+     * @return the number of words in the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether a word is a stop word.
+     *
+     * @param buffer the buffer holding the word
+     * @param length the number of chars in the word
+     * @return {@code true} if the word is in the set
+     */
+    public boolean contains(char[] buffer, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        for (int slot = hash & mask; slots[slot] != null; slot = (slot + 1) & mask) {
+            if (matches(slots[slot], buffer, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int normalize(char[] buffer, int length) {
+        return contains(buffer, length) ? 0 : length;
+    }
+
+    private static boolean matches(String word, char[] buffer, int length) {
+        if (word.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (word.charAt(i) != buffer[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
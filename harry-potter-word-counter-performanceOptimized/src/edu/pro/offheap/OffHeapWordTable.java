@@ -0,0 +1,433 @@
+package edu.pro.offheap;
+
+import edu.pro.Word;
+import edu.pro.count.Footprint;
+import edu.pro.count.SlotHash;
+import edu.pro.index.EntrySink;
+import edu.pro.rank.TopWords;
+import edu.pro.tokenize.TokenSink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Word counting table whose words and counts live outside the Java heap. Records are
+ * appended to pages of native memory, either direct buffers or pages of a memory-mapped
+ * file, and the only thing on the heap is the hash index: an {@code int} array of record
+ * addresses, 8 to 16 bytes per word. The index holds no references, so the collector never
+ * has to trace the dictionary, however many words it holds. Records can fill up to 32 GB.
+ *
+ * <p>A record is the count ({@code long}), the hash and length ({@code int} each) and the
+ * word bytes, padded to 8 bytes. A file-backed table keeps a header in front of the first
+ * page and can be reopened later to keep counting; the index is rebuilt by scanning the
+ * records once.
+ *
+ * <p>The header is written when the file is created, whenever the records move on to a new
+ * page and on {@link #close()}. If the process dies without closing the table, the file still
+ * reopens: it holds the words recorded up to the last header, with the counts they had reached,
+ * and loses the words first seen after it. Only a table closed cleanly holds a complete run.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class OffHeapWordTable
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class OffHeapWordTable implements TokenSink, Closeable {
+
+    private static final int MAGIC = 0x574F4648; // "WOFH"
+    private static final int VERSION = 1;
+
+    // 16 MB pages; a record never crosses a page
+    private static final int PAGE_SHIFT = 24;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    // Header of a file-backed table: magic, version, size, end address and total count
+    private static final int FILE_HEADER_SIZE = 64;
+    private static final int RECORD_HEADER_SIZE = 16;
+
+    // Length written where the records of a page end early
+    private static final int END_OF_PAGE = -1;
+
+    private static final int INITIAL_INDEX_CAPACITY = 2048;
+
+    // Records are 8-byte aligned, so a slot holds the address divided by 8 as an unsigned int
+    private static final int ALIGNMENT_SHIFT = 3;
+    private static final long MAX_ADDRESS = 0xFFFFFFFFL << ALIGNMENT_SHIFT;
+
+    private final FileChannel channel;
+    private final List<ByteBuffer> pages = new ArrayList<>();
+    private int[] slots = new int[INITIAL_INDEX_CAPACITY];
+    private int size;
+    private long totalCount;
+
+    // Address where the next record goes
+    private long end = FILE_HEADER_SIZE;
+
+    // Scratch space for comparing words stored in a page
+    private byte[] scratch = new byte[64];
+
+    private OffHeapWordTable(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Creates an empty table in direct memory. The memory is released when the table is
+     * no longer reachable, and counts towards {@code -XX:MaxDirectMemorySize}.
+     *
+     * @return the table
+     */
+    public static OffHeapWordTable inMemory() {
+        return new OffHeapWordTable(null);
+    }
+
+    /**
+     * Opens a table stored in a file, creating the file if it does not exist. Counts added
+     * to a reopened table are added to the counts it already holds.
+     *
+     * @param file the file holding the table
+     * @return the table
+     * @throws IOException if the file cannot be opened or is not a table
+     */
+    public static OffHeapWordTable open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        OffHeapWordTable table = new OffHeapWordTable(channel);
+        try {
+            if (channel.size() > 0) {
+                table.load(file);
+            } else {
+                table.writeHeader();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return table;
+    }
+
+    @Override
+    public void accept(byte[] buffer, int offset, int length) {
+        add(buffer, offset, length, 1);
+    }
+
+    /**
+     * Adds to the count of the word held in the slice, inserting the word if it is new.
+     *
+     * @param buffer the buffer holding the word
+     * @param offset the index of the first byte of the word
+     * @param length the number of bytes in the word
+     * @param delta the amount to add to the count
+     */
+    public void add(byte[] buffer, int offset, int length, long delta) {
+        int hash = SlotHash.of(buffer, offset, length);
+        int slot = find(buffer, offset, length, hash);
+        if (slots[slot] != 0) {
+            long address = address(slots[slot]);
+            ByteBuffer page = page(address);
+            int position = (int) (address & PAGE_MASK);
+            page.putLong(position, page.getLong(position) + delta);
+        } else {
+            slots[slot] = slot(append(buffer, offset, length, hash, delta));
+            size++;
+            // Keep the load factor at most one half, so probe sequences stay short
+            if (size * 2 > slots.length) {
+                rehash(slots.length * 2);
+            }
+        }
+        totalCount += delta;
+    }
+
+    /**
+     * Gets the count of the word held in the slice.
+     *
+     * @param buffer the buffer holding the word
+     * @param offset the index of the first byte of the word
+     * @param length the number of bytes in the word
+     * @return the count, zero if the word was never counted
+     */
+    public long count(byte[] buffer, int offset, int length) {
+        int entry = slots[find(buffer, offset, length, SlotHash.of(buffer, offset, length))];
+        if (entry == 0) {
+            return 0;
+        }
+        long address = address(entry);
+        return page(address).getLong((int) (address & PAGE_MASK));
+    }
+
+    /**
+     * Gets the number of distinct words.
+     *
+     * @return the number of distinct words
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the sum of all counts.
+     *
+     * @return the number of words counted
+     */
+    public long totalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Passes every word with its count to a sink, in the order the words were first seen.
+     *
+     * @param sink the sink receiving the entries
+     * @throws IOException if the sink fails
+     */
+    public void forEach(EntrySink sink) throws IOException {
+        for (long address = FILE_HEADER_SIZE; address < end; ) {
+            ByteBuffer page = page(address);
+            int position = (int) (address & PAGE_MASK);
+            int length = PAGE_SIZE - position < RECORD_HEADER_SIZE ? END_OF_PAGE
+                    : page.getInt(position + 12);
+            if (length == END_OF_PAGE) {
+                address = (address | PAGE_MASK) + 1;
+                continue;
+            }
+            byte[] word = word(page, position, length);
+            sink.accept(word, 0, length, page.getLong(position));
+            address += recordSize(length);
+        }
+    }
+
+    /**
+     * Selects the most frequent words, ties broken alphabetically.
+     *
+     * @param k the maximum number of words to return
+     * @return the selected words, most frequent first
+     */
+    public List<Word> top(int k) {
+        TopWords topWords = new TopWords(k);
+        try {
+            forEach(topWords::offer);
+        } catch (IOException e) {
+            // Offering to the heap never fails
+            throw new UncheckedIOException(e);
+        }
+        return topWords.words();
+    }
+
+    /**
+     * Gets the native memory or file space reserved for records.
+     *
+     * @return the size of all pages in bytes
+     */
+    public long offHeapBytes() {
+        return (long) pages.size() * PAGE_SIZE;
+    }
+
+    /**
+     * Gets the native memory or file space filled with records.
+     *
+     * @return the number of bytes used by records
+     */
+    public long usedOffHeapBytes() {
+        return end - FILE_HEADER_SIZE;
+    }
+
+    /**
+     * Estimates the heap used by the index.
+     *
+     * @return the estimated size in bytes
+     */
+    public long heapBytes() {
+        return Footprint.array(slots.length, 4) + Footprint.array(scratch.length, 1);
+    }
+
+    /**
+     * Writes the header of a file-backed table and flushes its pages to the file. A table in
+     * direct memory has nothing to flush.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        try {
+            writeHeader();
+            for (ByteBuffer page : pages) {
+                ((MappedByteBuffer) page).force();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeHeader() {
+        page(0).putInt(0, MAGIC)
+                .putInt(4, VERSION)
+                .putLong(8, size)
+                .putLong(16, end)
+                .putLong(24, totalCount);
+    }
+
+    private void load(Path file) throws IOException {
+        ByteBuffer header = page(0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not an off-heap word table: " + file);
+        }
+        long storedSize = header.getLong(8);
+        end = header.getLong(16);
+
+        // Rebuild the index and the total from the records; counts may have grown since the
+        // header was written if the table was not closed
+        for (long address = FILE_HEADER_SIZE; address < end; ) {
+            ByteBuffer page = page(address);
+            int position = (int) (address & PAGE_MASK);
+            int length = PAGE_SIZE - position < RECORD_HEADER_SIZE ? END_OF_PAGE : page.getInt(position + 12);
+            if (length == END_OF_PAGE) {
+                address = (address | PAGE_MASK) + 1;
+                continue;
+            }
+            insertSlot(address, page.getInt(position + 8));
+            totalCount += page.getLong(position);
+            address += recordSize(length);
+        }
+        if (size != storedSize) {
+            throw new IOException("Corrupt off-heap word table, " + size + " records instead of " + storedSize
+                    + ": " + file);
+        }
+    }
+
+    // Finds the slot of a word, or the empty slot where it would be inserted
+    private int find(byte[] buffer, int offset, int length, int hash) {
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0 || matches(address(entry), hash, buffer, offset, length)) {
+                return slot;
+            }
+        }
+    }
+
+    private boolean matches(long address, int hash, byte[] buffer, int offset, int length) {
+        ByteBuffer page = page(address);
+        int position = (int) (address & PAGE_MASK);
+        if (page.getInt(position + 8) != hash || page.getInt(position + 12) != length) {
+            return false;
+        }
+        byte[] word = word(page, position, length);
+        return Arrays.equals(word, 0, length, buffer, offset, offset + length);
+    }
+
+    private long append(byte[] buffer, int offset, int length, int hash, long count) {
+        int recordSize = recordSize(length);
+        if (recordSize > PAGE_SIZE) {
+            throw new IllegalArgumentException("Word longer than a page: " + length + " bytes");
+        }
+        int position = (int) (end & PAGE_MASK);
+        if (PAGE_SIZE - position < recordSize) {
+            // Mark the rest of the page as unused and start the next one
+            if (PAGE_SIZE - position >= RECORD_HEADER_SIZE) {
+                page(end).putInt(position + 12, END_OF_PAGE);
+            }
+            end = (end | PAGE_MASK) + 1;
+            position = 0;
+            if (channel != null) {
+                // Record the filled page, so it survives the process dying before close
+                writeHeader();
+            }
+        }
+
+        long address = end;
+        if (address + recordSize > MAX_ADDRESS) {
+            throw new IllegalStateException("Off-heap word table is full");
+        }
+        ByteBuffer page = page(address);
+        page.putLong(position, count)
+                .putInt(position + 8, hash)
+                .putInt(position + 12, length)
+                .put(position + RECORD_HEADER_SIZE, buffer, offset, length);
+        end += recordSize;
+        return address;
+    }
+
+    private void rehash(int capacity) {
+        int[] rehashed = new int[capacity];
+        for (int entry : slots) {
+            if (entry != 0) {
+                long address = address(entry);
+                place(rehashed, entry, page(address).getInt((int) (address & PAGE_MASK) + 8));
+            }
+        }
+        slots = rehashed;
+    }
+
+    // Adds a record known to be absent from the index
+    private void insertSlot(long address, int hash) {
+        place(slots, slot(address), hash);
+        size++;
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+    }
+
+    private static void place(int[] table, int entry, int hash) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = entry;
+    }
+
+    private byte[] word(ByteBuffer page, int position, int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        page.get(position + RECORD_HEADER_SIZE, scratch, 0, length);
+        return scratch;
+    }
+
+    // Gets the page holding an address, allocating or mapping pages up to it
+    private ByteBuffer page(long address) {
+        int index = (int) (address >>> PAGE_SHIFT);
+        while (pages.size() <= index) {
+            pages.add(newPage(pages.size()));
+        }
+        return pages.get(index);
+    }
+
+    private ByteBuffer newPage(int index) {
+        if (channel == null) {
+            return ByteBuffer.allocateDirect(PAGE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        try {
+            // Mapping past the end of the file extends it
+            return channel.map(FileChannel.MapMode.READ_WRITE, (long) index << PAGE_SHIFT, PAGE_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int recordSize(int length) {
+        return (RECORD_HEADER_SIZE + length + 7) & ~7;
+    }
+
+    private static int slot(long address) {
+        return (int) (address >>> ALIGNMENT_SHIFT);
+    }
+
+    private static long address(int slot) {
+        return Integer.toUnsignedLong(slot) << ALIGNMENT_SHIFT;
+    }
+}
@@ -0,0 +1,25 @@
+package edu.pro.pipeline;
+
+/**
+ * Block of file bytes passed from the reader stage to the tokenizer stage. A chunk always
+ * ends on a word boundary, so it can be tokenized on its own. The array is recycled through
+ * a pool once the chunk has been tokenized.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class Chunk
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+final class Chunk {
+
+    // Marks the end of the input for the tokenizer that receives it
+    static final Chunk END = new Chunk(new byte[0]);
+
+    byte[] data;
+    int length;
+
+    Chunk(byte[] data) {
+        this.data = data;
+    }
+}
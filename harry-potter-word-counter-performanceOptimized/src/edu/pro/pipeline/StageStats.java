@@ -0,0 +1,118 @@
+package edu.pro.pipeline;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput counters of one pipeline stage, updated concurrently by all of its threads.
+ * Busy time is spent doing the stage's work; waiting time is spent blocked on a queue, either
+ * starved for input or held back by a full downstream queue. Allocated bytes are those the
+ * threads allocated while busy, read with {@link edu.pro.metrics.ThreadAllocation}.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class StageStats
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class StageStats {
+
+    private final String name;
+    private final int threads;
+    private final LongAdder items = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    StageStats(String name, int threads) {
+        this.name = name;
+        this.threads = threads;
+    }
+
+    void processed(long itemCount, long byteCount, long nanos, long allocated) {
+        items.add(itemCount);
+        bytes.add(byteCount);
+        busyNanos.add(nanos);
+        allocatedBytes.add(allocated);
+    }
+
+    void waited(long nanos) {
+        waitNanos.add(nanos);
+    }
+
+    /**
+     * Gets the name of the stage.
+     *
+     * @return the stage name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of items the stage processed: chunks, words or words again.
+     *
+     * @return the item count
+     */
+    public long getItems() {
+        return items.sum();
+    }
+
+    /**
+     * Gets the number of bytes the stage processed.
+     *
+     * @return the byte count
+     */
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * Gets the total time all threads of the stage spent working.
+     *
+     * @return the busy time in nanoseconds
+     */
+    public long getBusyNanos() {
+        return busyNanos.sum();
+    }
+
+    /**
+     * Gets the total time all threads of the stage spent blocked on a queue.
+     *
+     * @return the waiting time in nanoseconds
+     */
+    public long getWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    /**
+     * Gets the total number of bytes all threads of the stage allocated while working.
+     *
+     * @return the allocated bytes
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    /**
+     * Describes the throughput of the stage.
+     *
+     * @param elapsedNanos the wall-clock duration of the run
+     * @return a one-line summary
+     */
+    public String describe(long elapsedNanos) {
+        double seconds = Math.max(1, elapsedNanos) / 1e9;
+        long capacity = Math.max(1, elapsedNanos * threads);
+        return String.format("%-9s %2d threads  %,14d items  %10.1f MB/s  %5.1f%% busy  %5.1f%% waiting",
+                name, threads, getItems(), getBytes() / seconds / (1 << 20),
+                100.0 * getBusyNanos() / capacity, 100.0 * getWaitNanos() / capacity);
+    }
+
+    @Override
+    public String toString() {
+        return name + "{items=" + getItems() + ", bytes=" + getBytes() + ", busyMillis="
+                + TimeUnit.NANOSECONDS.toMillis(getBusyNanos()) + ", waitMillis="
+                + TimeUnit.NANOSECONDS.toMillis(getWaitNanos()) + ", allocatedBytes=" + getAllocatedBytes() + '}';
+    }
+}
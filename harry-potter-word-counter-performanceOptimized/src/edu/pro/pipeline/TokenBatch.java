@@ -0,0 +1,51 @@
+package edu.pro.pipeline;
+
+/**
+ * Batch of words passed from the tokenizer stage to one counter. The words are packed into
+ * one byte array, so a batch of thousands of words is a single queue operation and two
+ * array allocations.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class TokenBatch
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+final class TokenBatch {
+
+    // Marks the end of the input for the counter that receives it
+    static final TokenBatch END = new TokenBatch(0, 0);
+
+    final byte[] bytes;
+
+    // End offset of every word in bytes; a word starts where the previous one ends
+    final int[] ends;
+    int size;
+
+    TokenBatch(int byteCapacity, int wordCapacity) {
+        this.bytes = new byte[byteCapacity];
+        this.ends = new int[wordCapacity];
+    }
+
+    /**
+     * Appends a word if there is room for it.
+     *
+     * @param buffer the buffer holding the word
+     * @param offset the index of the first byte of the word
+     * @param length the number of bytes in the word
+     * @return {@code false} if the batch is full and the word was not added
+     */
+    boolean add(byte[] buffer, int offset, int length) {
+        int start = size == 0 ? 0 : ends[size - 1];
+        if (size == ends.length || start + length > bytes.length) {
+            return false;
+        }
+        System.arraycopy(buffer, offset, bytes, start, length);
+        ends[size++] = start + length;
+        return true;
+    }
+
+    int start(int index) {
+        return index == 0 ? 0 : ends[index - 1];
+    }
+}
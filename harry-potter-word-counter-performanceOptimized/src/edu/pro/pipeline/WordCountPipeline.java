@@ -0,0 +1,355 @@
+package edu.pro.pipeline;
+
+import edu.pro.count.WordCountTable;
+import edu.pro.gzip.GzipInput;
+import edu.pro.metrics.ThreadAllocation;
+import edu.pro.tokenize.ByteTokenizer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Counts the words of many files with three concurrent stages connected by bounded queues:
+ *
+ * <ol>
+ *     <li>readers take whole files, decompressing {@code .gz} ones, and read them sequentially
+ *     into pooled chunks that end on word boundaries;</li>
+ *     <li>tokenizers split chunks into words and route every word by its hash to one counter,
+ *     packing the words into batches;</li>
+ *     <li>counters add the batches to their own tables. Each word always goes to the same
+ *     counter, so the tables are disjoint and the final merge never combines counts.</li>
+ * </ol>
+ *
+ * <p>A full queue blocks the stage that feeds it, and readers can only read as many chunks as
+ * the pool holds, so memory stays bounded however fast the disk is. Every stage keeps
+ * {@link StageStats} to show which of them is the bottleneck.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class WordCountPipeline
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class WordCountPipeline {
+
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int BATCH_BYTES = 64 * 1024;
+    private static final int BATCH_WORDS = 16 * 1024;
+
+    private final int readers;
+    private final int tokenizers;
+    private final int counters;
+    private final int queueCapacity;
+
+    private final StageStats readStats;
+    private final StageStats tokenizeStats;
+    private final StageStats countStats;
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param readers the number of reader threads
+     * @param tokenizers the number of tokenizer threads
+     * @param counters the number of counter threads
+     * @param queueCapacity the capacity of every queue, in chunks or batches
+     */
+    public WordCountPipeline(int readers, int tokenizers, int counters, int queueCapacity) {
+        this.readers = readers;
+        this.tokenizers = tokenizers;
+        this.counters = counters;
+        this.queueCapacity = queueCapacity;
+        this.readStats = new StageStats("read", readers);
+        this.tokenizeStats = new StageStats("tokenize", tokenizers);
+        this.countStats = new StageStats("count", counters);
+    }
+
+    /**
+     * Collects the regular files among the inputs, walking directories recursively.
+     *
+     * @param inputs files and directories
+     * @return every regular file, directories expanded in sorted order
+     * @throws IOException if a directory cannot be listed
+     */
+    public static List<Path> expand(List<Path> inputs) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                try (Stream<Path> walk = Files.walk(input)) {
+                    files.addAll(walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList()));
+                }
+            } else {
+                files.add(input);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Counts the words of all files.
+     *
+     * @param files the files to count
+     * @return the table holding the frequencies
+     * @throws IOException if a file cannot be read
+     */
+    public WordCountTable run(List<Path> files) throws IOException {
+        Queue<Path> pendingFiles = new ConcurrentLinkedQueue<>(files);
+
+        // The pool holds every chunk array; a reader waiting for a free one is held back by the tokenizers
+        BlockingQueue<byte[]> pool = new ArrayBlockingQueue<>(queueCapacity + readers + tokenizers);
+        for (int i = 0; i < queueCapacity + readers + tokenizers; i++) {
+            pool.add(new byte[CHUNK_SIZE]);
+        }
+        BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(queueCapacity);
+        List<BlockingQueue<TokenBatch>> batches = new ArrayList<>();
+        List<WordCountTable> tables = new ArrayList<>();
+        for (int i = 0; i < counters; i++) {
+            batches.add(new ArrayBlockingQueue<>(queueCapacity));
+            tables.add(new WordCountTable());
+        }
+
+        AtomicInteger activeReaders = new AtomicInteger(readers);
+        AtomicInteger activeTokenizers = new AtomicInteger(tokenizers);
+        ExecutorService executor = Executors.newFixedThreadPool(readers + tokenizers + counters);
+        CompletionService<Void> tasks = new ExecutorCompletionService<>(executor);
+        try {
+            for (int i = 0; i < counters; i++) {
+                BlockingQueue<TokenBatch> queue = batches.get(i);
+                WordCountTable table = tables.get(i);
+                tasks.submit(() -> count(queue, table));
+            }
+            for (int i = 0; i < tokenizers; i++) {
+                tasks.submit(() -> {
+                    tokenize(chunks, pool, batches);
+                    // The last tokenizer to finish tells every counter that no more batches will come
+                    if (activeTokenizers.decrementAndGet() == 0) {
+                        for (BlockingQueue<TokenBatch> queue : batches) {
+                            put(queue, TokenBatch.END, tokenizeStats);
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (int i = 0; i < readers; i++) {
+                tasks.submit(() -> {
+                    read(pendingFiles, pool, chunks);
+                    if (activeReaders.decrementAndGet() == 0) {
+                        for (int j = 0; j < tokenizers; j++) {
+                            put(chunks, Chunk.END, readStats);
+                        }
+                    }
+                    return null;
+                });
+            }
+            awaitAll(tasks, readers + tokenizers + counters);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Every word went to exactly one counter, so merging only inserts
+        WordCountTable result = tables.get(0);
+        for (int i = 1; i < counters; i++) {
+            result.merge(tables.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Gets the counters of all stages, in pipeline order.
+     *
+     * @return the read, tokenize and count statistics
+     */
+    public List<StageStats> stats() {
+        return List.of(readStats, tokenizeStats, countStats);
+    }
+
+    private Void read(Queue<Path> pendingFiles, BlockingQueue<byte[]> pool, BlockingQueue<Chunk> chunks)
+            throws IOException, InterruptedException {
+        Path file;
+        while ((file = pendingFiles.poll()) != null) {
+            try (ReadableByteChannel channel = GzipInput.newChannel(file)) {
+                byte[] data = take(pool, readStats);
+                int carry = 0;
+                while (true) {
+                    long started = System.nanoTime();
+                    long allocated = ThreadAllocation.current();
+                    if (carry == data.length) {
+                        // A single word fills the whole chunk, so it needs a bigger one
+                        data = Arrays.copyOf(data, data.length * 2);
+                    }
+                    int read = channel.read(ByteBuffer.wrap(data, carry, data.length - carry));
+                    if (read < 0) {
+                        readStats.processed(0, 0, System.nanoTime() - started, ThreadAllocation.current() - allocated);
+                        break;
+                    }
+                    int filled = carry + read;
+                    int end = lastWordBoundary(data, filled);
+                    if (end == 0) {
+                        carry = filled;
+                        readStats.processed(0, read, System.nanoTime() - started,
+                                ThreadAllocation.current() - allocated);
+                        continue;
+                    }
+
+                    // Move the unfinished last word to a fresh chunk, it is completed by the next read
+                    byte[] next = take(pool, readStats);
+                    carry = filled - end;
+                    if (carry >= next.length) {
+                        // The unfinished word outgrew a pooled chunk, so it moves to a bigger one
+                        next = new byte[carry + CHUNK_SIZE];
+                    }
+                    System.arraycopy(data, end, next, 0, carry);
+                    readStats.processed(1, read, System.nanoTime() - started,
+                            ThreadAllocation.current() - allocated);
+
+                    Chunk chunk = new Chunk(data);
+                    chunk.length = end;
+                    put(chunks, chunk, readStats);
+                    data = next;
+                }
+
+                Chunk last = new Chunk(data);
+                last.length = carry;
+                put(chunks, last, readStats);
+            }
+        }
+        return null;
+    }
+
+    private void tokenize(BlockingQueue<Chunk> chunks, BlockingQueue<byte[]> pool,
+                          List<BlockingQueue<TokenBatch>> batches) throws InterruptedException {
+        TokenBatch[] open = new TokenBatch[counters];
+        for (int i = 0; i < counters; i++) {
+            open[i] = new TokenBatch(BATCH_BYTES, BATCH_WORDS);
+        }
+        // Full batches are collected during the scan and queued afterwards, because the sink cannot block
+        List<TokenBatch> full = new ArrayList<>();
+        List<Integer> fullTargets = new ArrayList<>();
+
+        Chunk chunk;
+        while ((chunk = take(chunks, tokenizeStats)) != Chunk.END) {
+            long started = System.nanoTime();
+            long allocated = ThreadAllocation.current();
+            long[] words = new long[1];
+            int pending = ByteTokenizer.scan(chunk.data, 0, chunk.length, (buffer, offset, length) -> {
+                route(open, full, fullTargets, buffer, offset, length);
+                words[0]++;
+            });
+            if (pending < chunk.length) {
+                route(open, full, fullTargets, chunk.data, pending, chunk.length - pending);
+                words[0]++;
+            }
+            tokenizeStats.processed(words[0], chunk.length, System.nanoTime() - started,
+                    ThreadAllocation.current() - allocated);
+            pool.offer(chunk.data);
+
+            for (int i = 0; i < full.size(); i++) {
+                put(batches.get(fullTargets.get(i)), full.get(i), tokenizeStats);
+            }
+            full.clear();
+            fullTargets.clear();
+        }
+
+        for (int i = 0; i < counters; i++) {
+            if (open[i].size > 0) {
+                put(batches.get(i), open[i], tokenizeStats);
+            }
+        }
+    }
+
+    private void route(TokenBatch[] open, List<TokenBatch> full, List<Integer> fullTargets,
+                       byte[] buffer, int offset, int length) {
+        int target = counters == 1 ? 0 : Math.floorMod(hash(buffer, offset, length), counters);
+        if (!open[target].add(buffer, offset, length)) {
+            full.add(open[target]);
+            fullTargets.add(target);
+            open[target] = new TokenBatch(Math.max(BATCH_BYTES, length), BATCH_WORDS);
+            open[target].add(buffer, offset, length);
+        }
+    }
+
+    private Void count(BlockingQueue<TokenBatch> queue, WordCountTable table) throws InterruptedException {
+        TokenBatch batch;
+        while ((batch = take(queue, countStats)) != TokenBatch.END) {
+            long started = System.nanoTime();
+            long allocated = ThreadAllocation.current();
+            for (int i = 0; i < batch.size; i++) {
+                int start = batch.start(i);
+                table.add(batch.bytes, start, batch.ends[i] - start, 1);
+            }
+            countStats.processed(batch.size, batch.ends[batch.size - 1], System.nanoTime() - started,
+                    ThreadAllocation.current() - allocated);
+        }
+        return null;
+    }
+
+    // Finds the end of the last complete word, i.e. the position after the last non-letter
+    private static int lastWordBoundary(byte[] data, int filled) {
+        for (int i = filled - 1; i >= 0; i--) {
+            if (!ByteTokenizer.isLetter(data[i])) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static int hash(byte[] buffer, int offset, int length) {
+        int h = 0x811C9DC5;
+        for (int i = offset; i < offset + length; i++) {
+            h = (h ^ buffer[i]) * 0x01000193;
+        }
+        return h;
+    }
+
+    private static <T> T take(BlockingQueue<T> queue, StageStats stats) throws InterruptedException {
+        long started = System.nanoTime();
+        T item = queue.take();
+        stats.waited(System.nanoTime() - started);
+        return item;
+    }
+
+    private static <T> void put(BlockingQueue<T> queue, T item, StageStats stats) throws InterruptedException {
+        long started = System.nanoTime();
+        queue.put(item);
+        stats.waited(System.nanoTime() - started);
+    }
+
+    // Waits for the tasks in completion order, so the first failure is seen even while other stages block
+    private static void awaitAll(CompletionService<Void> tasks, int count) throws IOException {
+        try {
+            for (int i = 0; i < count; i++) {
+                tasks.take().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while counting", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw new IllegalStateException("Pipeline stage failed", cause);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package edu.pro.rank;
+
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Sorts arrays of primitive ids with a comparator, which the JDK only offers for objects.
+ * The sort is a stable merge sort, so equal ids keep their order.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class IdSorter
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class IdSorter {
+
+    // Short runs are sorted by insertion, which beats merging them
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private IdSorter() {
+    }
+
+    /**
+     * Sorts the ids in place.
+     *
+     * @param ids the ids to sort
+     * @param comparator compares two ids, negative if the first one sorts first
+     */
+    public static void sort(int[] ids, IntBinaryOperator comparator) {
+        sort(ids, 0, ids.length, comparator);
+    }
+
+    /**
+     * Sorts the range {@code ids[from, to)} in place.
+     *
+     * @param ids the ids to sort
+     * @param from the index of the first id to sort
+     * @param to the index after the last id to sort
+     * @param comparator compares two ids, negative if the first one sorts first
+     */
+    public static void sort(int[] ids, int from, int to, IntBinaryOperator comparator) {
+        int[] buffer = ids.clone();
+        mergeSort(buffer, ids, from, to, comparator);
+    }
+
+    // Sorts source[from, to) into target[from, to); both arrays hold the same ids on entry
+    private static void mergeSort(int[] source, int[] target, int from, int to, IntBinaryOperator comparator) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int id = target[i];
+                int j = i - 1;
+                while (j >= from && comparator.applyAsInt(target[j], id) > 0) {
+                    target[j + 1] = target[j];
+                    j--;
+                }
+                target[j + 1] = id;
+            }
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        // Sort both halves into source, then merge them back into target
+        mergeSort(target, source, from, middle, comparator);
+        mergeSort(target, source, middle, to, comparator);
+
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && comparator.applyAsInt(source[left], source[right]) <= 0)) {
+                target[i] = source[left++];
+            } else {
+                target[i] = source[right++];
+            }
+        }
+    }
+}
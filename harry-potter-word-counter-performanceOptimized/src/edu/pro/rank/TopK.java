@@ -0,0 +1,190 @@
+package edu.pro.rank;
+
+import edu.pro.Word;
+import edu.pro.count.WordCountTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Bounded selection of the K most frequent entries. A min-heap of size K is kept in two
+ * parallel primitive arrays, so ranking n entries costs O(n log K) time and no object is
+ * created for the entries that do not make it into the result.
+ *
+ * <p>Entries are ordered by count descending. Equal counts are ordered by the tie-breaker,
+ * which makes the result independent of the order the entries were offered in.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class TopK
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class TopK {
+
+    private final int k;
+    private final IntBinaryOperator tieBreaker;
+
+    // Capacity of a new heap, which then doubles up to K as entries arrive
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Heap of the best entries seen so far, with the worst of them at the root
+    private int[] ids;
+    private long[] counts;
+    private int size;
+
+    /**
+     * Creates an empty selection.
+     *
+     * @param k the maximum number of entries to keep
+     * @param tieBreaker compares two ids with equal counts, negative if the first one ranks higher
+     */
+    public TopK(int k, IntBinaryOperator tieBreaker) {
+        if (k < 0) {
+            throw new IllegalArgumentException("K must not be negative: " + k);
+        }
+        this.k = k;
+        this.tieBreaker = tieBreaker;
+        // K is often far above the number of candidates, so the heap only grows as needed
+        this.ids = new int[Math.min(k, INITIAL_CAPACITY)];
+        this.counts = new long[ids.length];
+    }
+
+    /**
+     * Selects the most frequent words of a table, ties broken alphabetically.
+     *
+     * @param table the table to rank
+     * @param k the maximum number of words to return
+     * @return the selected words, most frequent first
+     */
+    public static List<Word> words(WordCountTable table, int k) {
+        TopK topK = new TopK(k, table::compareWords);
+        for (int id = 0; id < table.size(); id++) {
+            topK.offer(id, table.count(id));
+        }
+
+        List<Word> words = new ArrayList<>(topK.size());
+        for (int id : topK.ids()) {
+            words.add(new Word(table.word(id), table.count(id)));
+        }
+        return words;
+    }
+
+    /**
+     * Offers an entry to the selection.
+     *
+     * @param id the id of the entry
+     * @param count the count the entry is ranked by
+     */
+    public void offer(int id, long count) {
+        if (size < k) {
+            if (size == ids.length) {
+                int capacity = (int) Math.min(k, 2L * size);
+                ids = Arrays.copyOf(ids, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+            }
+            ids[size] = id;
+            counts[size] = count;
+            siftUp(size++);
+        } else if (k > 0 && ranksBelow(ids[0], counts[0], id, count)) {
+            // The new entry beats the worst one kept, so it takes the root's place
+            ids[0] = id;
+            counts[0] = count;
+            siftDown(ids, counts, 0, size);
+        }
+    }
+
+    /**
+     * Gets the number of entries kept.
+     *
+     * @return at most K
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the ids of the selected entries, best first. The selection stays usable afterwards.
+     *
+     * @return the ranked ids
+     */
+    public int[] ids() {
+        return rank(null);
+    }
+
+    /**
+     * Gets the counts of the selected entries, in the same order as {@link #ids()}.
+     *
+     * @return the ranked counts
+     */
+    public long[] counts() {
+        long[] rankedCounts = new long[size];
+        rank(rankedCounts);
+        return rankedCounts;
+    }
+
+    private int[] rank(long[] rankedCounts) {
+        int[] heapIds = Arrays.copyOf(ids, size);
+        long[] heapCounts = Arrays.copyOf(counts, size);
+        int[] rankedIds = new int[size];
+
+        // Pop the worst entry of a copy of the heap repeatedly, filling the result from the back
+        for (int last = size - 1; last >= 0; last--) {
+            rankedIds[last] = heapIds[0];
+            if (rankedCounts != null) {
+                rankedCounts[last] = heapCounts[0];
+            }
+            heapIds[0] = heapIds[last];
+            heapCounts[0] = heapCounts[last];
+            siftDown(heapIds, heapCounts, 0, last);
+        }
+        return rankedIds;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksBelow(ids[index], counts[index], ids[parent], counts[parent])) {
+                return;
+            }
+            swap(ids, counts, index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] ids, long[] counts, int index, int limit) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= limit) {
+                return;
+            }
+            if (child + 1 < limit && ranksBelow(ids[child + 1], counts[child + 1], ids[child], counts[child])) {
+                child++;
+            }
+            if (!ranksBelow(ids[child], counts[child], ids[index], counts[index])) {
+                return;
+            }
+            swap(ids, counts, index, child);
+            index = child;
+        }
+    }
+
+    // Checks whether the first entry ranks strictly below the second one
+    private boolean ranksBelow(int id, long count, int otherId, long otherCount) {
+        if (count != otherCount) {
+            return count < otherCount;
+        }
+        return tieBreaker.applyAsInt(id, otherId) > 0;
+    }
+
+    private static void swap(int[] ids, long[] counts, int i, int j) {
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        long count = counts[i];
+        counts[i] = counts[j];
+        counts[j] = count;
+    }
+}
@@ -0,0 +1,207 @@
+package edu.pro.rank;
+
+import edu.pro.Word;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bounded selection of the K most frequent words from a stream of words that are not kept
+ * anywhere else, such as the output of a merge. Like {@link TopK} it is a min-heap of size K
+ * in primitive arrays, but it copies the bytes of a word when the word enters the heap, and
+ * reuses the buffer of the word it replaces. Ties are broken alphabetically.
+ *
+ * <p>The heap holds slot numbers. A word stays in its slot until a better word replaces it,
+ * so a caller can keep more data per word in arrays indexed by the slot {@link #offer}
+ * returns. The count may be any non-negative key, such as the bits of a non-negative
+ * {@code double}, which order the same way.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class TopWords
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class TopWords {
+
+    // Capacity of a new heap, which then doubles up to K as words arrive
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int k;
+
+    // Slot contents
+    private byte[][] words;
+    private int[] lengths;
+    private long[] counts;
+
+    // Heap of slots, the worst word at the root
+    private int[] heap;
+    private int size;
+
+    /**
+     * Creates an empty selection.
+     *
+     * @param k the maximum number of words to keep
+     */
+    public TopWords(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("K must not be negative: " + k);
+        }
+        this.k = k;
+        // K may be far above the number of words offered, so the heap only grows as needed
+        int capacity = Math.min(k, INITIAL_CAPACITY);
+        this.words = new byte[capacity][];
+        this.lengths = new int[capacity];
+        this.counts = new long[capacity];
+        this.heap = new int[capacity];
+    }
+
+    /**
+     * Offers a word to the selection.
+     *
+     * @param word the buffer holding the word
+     * @param offset the index of the first byte of the word
+     * @param length the number of bytes in the word
+     * @param count the count the word is ranked by
+     * @return the slot now holding the word, or {@code -1} if the word was not kept
+     */
+    public int offer(byte[] word, int offset, int length, long count) {
+        int slot;
+        if (size < k) {
+            if (size == heap.length) {
+                grow();
+            }
+            slot = size;
+            heap[size] = slot;
+        } else if (k > 0 && ranksBelow(heap[0], word, offset, length, count)) {
+            // The new word beats the worst one kept, so it takes over the root's slot
+            slot = heap[0];
+        } else {
+            return -1;
+        }
+
+        if (words[slot] == null || words[slot].length < length) {
+            words[slot] = new byte[Math.max(length, 16)];
+        }
+        System.arraycopy(word, offset, words[slot], 0, length);
+        lengths[slot] = length;
+        counts[slot] = count;
+
+        if (slot == size) {
+            siftUp(size++);
+        } else {
+            siftDown(0);
+        }
+        return slot;
+    }
+
+    /**
+     * Gets the number of words kept.
+     *
+     * @return at most K
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the slots of the selected words, most frequent first.
+     *
+     * @return the ranked slots
+     */
+    public int[] rankedSlots() {
+        int[] slots = Arrays.copyOf(heap, size);
+        IdSorter.sort(slots, (slot, other) -> ranksBelow(slot, other) ? 1 : ranksBelow(other, slot) ? -1 : 0);
+        return slots;
+    }
+
+    /**
+     * Gets the word held in a slot.
+     *
+     * @param slot the slot
+     * @return the word
+     */
+    public String word(int slot) {
+        return new String(words[slot], 0, lengths[slot], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the count of the word held in a slot.
+     *
+     * @param slot the slot
+     * @return the count
+     */
+    public long count(int slot) {
+        return counts[slot];
+    }
+
+    /**
+     * Gets the selected words, most frequent first.
+     *
+     * @return the ranked words
+     */
+    public List<Word> words() {
+        List<Word> ranked = new ArrayList<>(size);
+        for (int slot : rankedSlots()) {
+            ranked.add(new Word(word(slot), counts[slot]));
+        }
+        return ranked;
+    }
+
+    private void grow() {
+        int capacity = (int) Math.min(k, 2L * size);
+        words = Arrays.copyOf(words, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+        heap = Arrays.copyOf(heap, capacity);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksBelow(heap[index], heap[parent])) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && ranksBelow(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!ranksBelow(heap[child], heap[index])) {
+                return;
+            }
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    // Checks whether the word in the first slot ranks strictly below the one in the second
+    private boolean ranksBelow(int slot, int otherSlot) {
+        return ranksBelow(slot, words[otherSlot], 0, lengths[otherSlot], counts[otherSlot]);
+    }
+
+    // Checks whether the word in the slot ranks strictly below the given word
+    private boolean ranksBelow(int slot, byte[] word, int offset, int length, long count) {
+        if (counts[slot] != count) {
+            return counts[slot] < count;
+        }
+        return Arrays.compareUnsigned(words[slot], 0, lengths[slot], word, offset, offset + length) > 0;
+    }
+
+    private void swap(int i, int j) {
+        int slot = heap[i];
+        heap[i] = heap[j];
+        heap[j] = slot;
+    }
+}
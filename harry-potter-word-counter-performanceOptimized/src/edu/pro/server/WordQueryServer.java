@@ -0,0 +1,286 @@
+package edu.pro.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import edu.pro.Word;
+import edu.pro.index.WordIndex;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Long-running HTTP server answering word frequency queries from a {@link WordIndex} that is
+ * loaded once. Every answer is a JSON document:
+ *
+ * <ul>
+ *     <li>{@code GET /top?k=30} - the most frequent words;</li>
+ *     <li>{@code GET /prefix?p=har&k=10} - the most frequent words beginning with a prefix;</li>
+ *     <li>{@code GET /count?w=harry} - the count of one word, zero if it is unknown;</li>
+ *     <li>{@code GET /stats} - the size of the index and the number of queries served.</li>
+ * </ul>
+ *
+ * <p>{@code k} is at most 10000. A malformed query is answered with 400, and an
+ * unexpected failure with 500, so a client always gets a response.
+ *
+ * <p>The index is memory-mapped and sorted, so a lookup is a binary search over its blocks
+ * and a prefix query decodes only the range of words sharing the prefix. The top words up
+ * to {@code maxTop}, and the top words of every one and two letter prefix, are ranked once
+ * at startup. Requests are handled by a fixed pool of
+ * threads, because the queries never block on anything but the CPU.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class WordQueryServer
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class WordQueryServer implements Closeable {
+
+    // Connections waiting to be accepted while every handler thread is busy
+    private static final int BACKLOG = 1024;
+
+    // Number of words returned when a query does not give k
+    private static final int DEFAULT_K = 10;
+
+    // Largest k a query may ask for; anything above is answered with 400 rather than ranked
+    private static final int MAX_K = 10_000;
+
+    // Prefixes this short match a large part of the dictionary, so their top words are ranked at startup
+    private static final int CACHED_PREFIX_LENGTH = 2;
+    private static final int CACHED_PREFIX_K = 100;
+
+    // The JDK server writes the headers and the body of a response separately. With Nagle's
+    // algorithm the body then waits for the delayed ACK of the headers, about 40 ms, on every
+    // request of a keep-alive connection after the first.
+    private static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    static {
+        if (System.getProperty(NO_DELAY_PROPERTY) == null) {
+            System.setProperty(NO_DELAY_PROPERTY, "true");
+        }
+    }
+
+    private final WordIndex index;
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final List<Word> top;
+    private final Map<String, List<Word>> topByPrefix;
+    private final LongAdder queries = new LongAdder();
+
+    /**
+     * Binds the server; it starts answering after {@link #start()}.
+     *
+     * @param index the index to answer from
+     * @param address the address to listen on, port zero for any free port
+     * @param threads the number of request handler threads
+     * @param maxTop the number of top words ranked in advance
+     * @throws IOException if the address cannot be bound
+     */
+    public WordQueryServer(WordIndex index, InetSocketAddress address, int threads, int maxTop) throws IOException {
+        this.index = index;
+        this.top = index.top(maxTop);
+        this.topByPrefix = index.topByPrefix(CACHED_PREFIX_LENGTH, CACHED_PREFIX_K);
+        this.server = HttpServer.create(address, BACKLOG);
+
+        AtomicInteger handlerNumber = new AtomicInteger();
+        this.handlers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "word-query-" + handlerNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(handlers);
+
+        server.createContext("/top", query(parameters -> words(topWords(integer(parameters, "k", DEFAULT_K, MAX_K)))));
+        server.createContext("/prefix", query(parameters -> words(prefixWords(
+                required(parameters, "p").toLowerCase(Locale.ROOT), integer(parameters, "k", DEFAULT_K, MAX_K)))));
+        server.createContext("/count", query(parameters -> {
+            String word = required(parameters, "w").toLowerCase(Locale.ROOT);
+            return "{\"word\":" + quote(word) + ",\"count\":" + index.frequency(word) + "}";
+        }));
+        server.createContext("/stats", query(parameters -> "{\"words\":" + index.wordCount()
+                + ",\"totalCount\":" + index.totalCount() + ",\"queries\":" + queries.sum() + "}"));
+    }
+
+    /**
+     * Starts answering requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Gets the address the server listens on.
+     *
+     * @return the bound address
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Gets the number of queries answered so far.
+     *
+     * @return the number of successful queries
+     */
+    public long getQueries() {
+        return queries.sum();
+    }
+
+    /**
+     * Stops the server, letting the requests being handled finish for up to one second.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        handlers.shutdown();
+    }
+
+    private List<Word> topWords(int k) {
+        // Beyond the words ranked at startup the counts column is ranked again
+        return k <= top.size() ? top.subList(0, k) : index.top((int) Math.min(k, index.wordCount()));
+    }
+
+    private List<Word> prefixWords(String prefix, int k) {
+        if (prefix.isEmpty()) {
+            return topWords(k);
+        }
+        if (prefix.length() <= CACHED_PREFIX_LENGTH && k <= CACHED_PREFIX_K) {
+            List<Word> words = topByPrefix.getOrDefault(prefix, List.of());
+            return words.subList(0, Math.min(k, words.size()));
+        }
+        // Longer prefixes cover a narrow range of the dictionary, which is decoded on demand
+        return index.topWithPrefix(prefix, k);
+    }
+
+    private HttpHandler query(Query query) {
+        return exchange -> {
+            try {
+                if (!exchange.getRequestMethod().equals("GET")) {
+                    exchange.getResponseHeaders().set("Allow", "GET");
+                    send(exchange, 405, "{\"error\":\"Only GET is supported\"}");
+                    return;
+                }
+                String body;
+                try {
+                    body = query.answer(parameters(exchange.getRequestURI().getRawQuery()));
+                } catch (IllegalArgumentException e) {
+                    send(exchange, 400, "{\"error\":" + quote(e.getMessage()) + "}");
+                    return;
+                } catch (RuntimeException e) {
+                    // A failing query must not leave the client with a closed connection
+                    System.err.println("Query " + exchange.getRequestURI() + " failed: " + e);
+                    send(exchange, 500, "{\"error\":\"Internal error\"}");
+                    return;
+                }
+                queries.increment();
+                send(exchange, 200, body);
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static String required(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter " + name);
+        }
+        return value;
+    }
+
+    private static int integer(Map<String, String> parameters, String name, int defaultValue, int maxValue) {
+        String value = parameters.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (number < 0) {
+                throw new IllegalArgumentException("Parameter " + name + " must not be negative: " + value);
+            }
+            if (number > maxValue) {
+                throw new IllegalArgumentException("Parameter " + name + " must be at most " + maxValue + ": " + value);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " is not a number: " + value);
+        }
+    }
+
+    private static String words(List<Word> words) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < words.size(); i++) {
+            Word word = words.get(i);
+            json.append(i == 0 ? "" : ",").append("{\"word\":").append(quote(word.getWordContent()))
+                    .append(",\"count\":").append(word.getFrequency()).append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    private static String quote(String text) {
+        StringBuilder json = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    /**
+     * Answer of one endpoint.
+     */
+    @FunctionalInterface
+    private interface Query {
+
+        /**
+         * Answers a request.
+         *
+         * @param parameters the decoded query parameters
+         * @return the JSON body of the response
+         * @throws IllegalArgumentException if a parameter is missing or invalid
+         */
+        String answer(Map<String, String> parameters);
+    }
+}
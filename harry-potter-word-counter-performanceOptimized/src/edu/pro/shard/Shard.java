@@ -0,0 +1,203 @@
+package edu.pro.shard;
+
+import edu.pro.count.ParallelWordCounter;
+import edu.pro.gzip.GzipInput;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The part of a corpus one worker process counts: byte ranges of files, cut on word
+ * boundaries. A shard is handed to its worker as a manifest file with one
+ * {@code start end path} line per range, so the workers need nothing but the files and
+ * their manifest, whether they run on this host or read the corpus from shared storage.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class Shard
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class Shard {
+
+    private final int id;
+    private final List<Path> files = new ArrayList<>();
+    private final List<long[]> ranges = new ArrayList<>();
+    private long bytes;
+
+    /**
+     * Creates an empty shard.
+     *
+     * @param id the number of the shard, unique within a run
+     */
+    public Shard(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Splits files into shards of about the same number of bytes. Files larger than a shard
+     * are cut into word-aligned ranges; {@code .gz} files cannot be cut and stay whole. The
+     * ranges are then dealt largest first to the shard with the fewest bytes so far.
+     *
+     * @param files the files to split
+     * @param count the wanted number of shards
+     * @return the non-empty shards, numbered from zero
+     * @throws IOException if a file cannot be read
+     */
+    public static List<Shard> plan(List<Path> files, int count) throws IOException {
+        long total = 0;
+        for (Path file : files) {
+            total += Files.size(file);
+        }
+        long target = Math.max(1, (total + count - 1) / count);
+
+        List<Shard> pieces = new ArrayList<>();
+        for (Path file : files) {
+            long size = Files.size(file);
+            if (size <= target || GzipInput.isCompressed(file)) {
+                pieces.add(new Shard(-1).add(file, 0, size));
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                for (long[] range : ParallelWordCounter.split(channel, (int) ((size + target - 1) / target))) {
+                    pieces.add(new Shard(-1).add(file, range[0], range[1]));
+                }
+            }
+        }
+        pieces.sort(Comparator.comparingLong(Shard::bytes).reversed());
+
+        PriorityQueue<Shard> lightest = new PriorityQueue<>(
+                Comparator.comparingLong(Shard::bytes).thenComparingInt(Shard::id));
+        for (int id = 0; id < count; id++) {
+            lightest.add(new Shard(id));
+        }
+        for (Shard piece : pieces) {
+            Shard shard = lightest.poll();
+            shard.add(piece.files.get(0), piece.ranges.get(0)[0], piece.ranges.get(0)[1]);
+            lightest.add(shard);
+        }
+
+        List<Shard> shards = new ArrayList<>();
+        for (Shard shard : lightest) {
+            if (shard.rangeCount() > 0) {
+                shards.add(shard);
+            }
+        }
+        shards.sort(Comparator.comparingInt(Shard::id));
+        return shards;
+    }
+
+    /**
+     * Reads the ranges of a manifest written by {@link #writeManifest(Path)}.
+     *
+     * @param manifest the manifest file
+     * @param id the number of the shard
+     * @return the shard
+     * @throws IOException if the manifest cannot be read or is malformed
+     */
+    public static Shard readManifest(Path manifest, int id) throws IOException {
+        Shard shard = new Shard(id);
+        for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(" ", 3);
+            if (fields.length < 3) {
+                throw new IOException("Malformed shard manifest line in " + manifest + ": " + line);
+            }
+            try {
+                shard.add(Paths.get(fields[2]), Long.parseLong(fields[0]), Long.parseLong(fields[1]));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed shard manifest line in " + manifest + ": " + line, e);
+            }
+        }
+        return shard;
+    }
+
+    /**
+     * Writes the manifest the worker of this shard reads.
+     *
+     * @param manifest the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeManifest(Path manifest) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(manifest, StandardCharsets.UTF_8)) {
+            writer.write("# shard " + id + ": " + rangeCount() + " ranges, " + bytes + " bytes\n");
+            for (int i = 0; i < ranges.size(); i++) {
+                // Absolute paths, so the worker does not depend on its working directory
+                writer.write(ranges.get(i)[0] + " " + ranges.get(i)[1] + " " + files.get(i).toAbsolutePath() + "\n");
+            }
+        }
+    }
+
+    /**
+     * Gets the number of the shard.
+     *
+     * @return the id
+     */
+    public int id() {
+        return id;
+    }
+
+    /**
+     * Gets the number of bytes of all ranges.
+     *
+     * @return the size of the shard
+     */
+    public long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Gets the number of ranges.
+     *
+     * @return the number of file ranges in the shard
+     */
+    public int rangeCount() {
+        return ranges.size();
+    }
+
+    /**
+     * Gets the file of a range.
+     *
+     * @param index the index of the range
+     * @return the file the range belongs to
+     */
+    public Path file(int index) {
+        return files.get(index);
+    }
+
+    /**
+     * Gets the bounds of a range.
+     *
+     * @param index the index of the range
+     * @return the {@code [start, end)} pair of the range
+     */
+    public long[] range(int index) {
+        return ranges.get(index).clone();
+    }
+
+    @Override
+    public String toString() {
+        return "shard " + id + ": " + ranges.size() + (ranges.size() == 1 ? " range, " : " ranges, ")
+                + bytes + " bytes" + (ranges.size() == 1 ? " of " + files.get(0).getFileName()
+                : " of " + files.stream().distinct().count() + " files");
+    }
+
+    private Shard add(Path file, long start, long end) {
+        files.add(file);
+        ranges.add(new long[]{start, end});
+        bytes += end - start;
+        return this;
+    }
+}
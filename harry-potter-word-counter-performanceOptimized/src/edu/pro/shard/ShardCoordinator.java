@@ -0,0 +1,204 @@
+package edu.pro.shard;
+
+import edu.pro.index.WordIndex;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts shards in separate worker JVMs started with {@link ProcessBuilder}, at most a given
+ * number at a time. Each worker gets the manifest of its shard and writes a partial word
+ * index to the work directory; its output goes to a log file next to it. A worker that
+ * exits abnormally or leaves no partial result is started again, up to the given number of
+ * retries. Every start, finish and retry is reported as it happens.
+ *
+ * <p>With NUMA nodes configured, worker {@code i} runs under
+ * {@code numactl --cpunodebind=n --membind=n} for node {@code n = i mod nodes}, so each
+ * worker stays on the memory of its node.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class ShardCoordinator
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class ShardCoordinator {
+
+    // Entry point the workers run, followed by the worker mode
+    private static final String MAIN_CLASS = "edu.pro.Main";
+    private static final String WORKER_MODE = "worker";
+
+    private final Path workDirectory;
+    private final int workers;
+    private final int retries;
+    private final List<String> command;
+    private final int numaNodes;
+    private final PrintStream log;
+
+    /**
+     * Creates a coordinator.
+     *
+     * @param workDirectory the directory receiving manifests, partial results and worker logs
+     * @param workers the largest number of workers running at once
+     * @param retries how many times a failed shard is started again
+     * @param command the command starting a worker, without the shard arguments
+     * @param numaNodes the number of NUMA nodes to spread the workers over, or zero to leave placement to the system
+     * @param log the stream progress is reported to
+     */
+    public ShardCoordinator(Path workDirectory, int workers, int retries, List<String> command, int numaNodes,
+                            PrintStream log) {
+        this.workDirectory = workDirectory;
+        this.workers = workers;
+        this.retries = retries;
+        this.command = List.copyOf(command);
+        this.numaNodes = numaNodes;
+        this.log = log;
+    }
+
+    /**
+     * Builds the command starting a worker on the JVM and class path of the current process.
+     *
+     * @param jvmOptions options for the worker JVM, such as a heap size
+     * @param options options passed on to the worker mode, such as the tokenizer
+     * @return the command, to be completed with the shard arguments
+     */
+    public static List<String> workerCommand(List<String> jvmOptions, List<String> options) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(MAIN_CLASS);
+        command.add(WORKER_MODE);
+        command.addAll(options);
+        return command;
+    }
+
+    /**
+     * Counts every shard in a worker process and waits for all of them.
+     *
+     * @param shards the shards to count
+     * @return the partial result of every shard, in shard order
+     * @throws IOException if a shard still fails after its retries or a worker cannot be started
+     */
+    public List<Path> run(List<Shard> shards) throws IOException {
+        Files.createDirectories(workDirectory);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(workers, shards.size())), runnable -> {
+            Thread thread = new Thread(runnable, "shard-launcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Path>> results = new ArrayList<>();
+            for (Shard shard : shards) {
+                results.add(pool.submit(() -> count(shard)));
+            }
+            List<Path> partials = new ArrayList<>();
+            for (Future<Path> result : results) {
+                partials.add(result.get());
+            }
+            return partials;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the workers");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            // Stops the launchers still waiting, which stop their workers
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets the manifest file of a shard.
+     *
+     * @param shard the shard
+     * @return the manifest path in the work directory
+     */
+    public Path manifest(Shard shard) {
+        return workDirectory.resolve("shard-" + shard.id() + ".txt");
+    }
+
+    /**
+     * Gets the partial result file of a shard.
+     *
+     * @param shard the shard
+     * @return the partial index path in the work directory
+     */
+    public Path partial(Shard shard) {
+        return workDirectory.resolve("shard-" + shard.id() + ".widx");
+    }
+
+    /**
+     * Gets the log file of the workers of a shard.
+     *
+     * @param shard the shard
+     * @return the log path in the work directory
+     */
+    public Path logFile(Shard shard) {
+        return workDirectory.resolve("shard-" + shard.id() + ".log");
+    }
+
+    private Path count(Shard shard) throws IOException, InterruptedException {
+        Path manifest = manifest(shard);
+        Path partial = partial(shard);
+        Path logFile = logFile(shard);
+        shard.writeManifest(manifest);
+
+        for (int attempt = 1; ; attempt++) {
+            Files.deleteIfExists(partial);
+            List<String> arguments = new ArrayList<>();
+            if (numaNodes > 0) {
+                int node = shard.id() % numaNodes;
+                arguments.addAll(List.of("numactl", "--cpunodebind=" + node, "--membind=" + node));
+            }
+            arguments.addAll(command);
+            arguments.add("--manifest=" + manifest);
+            arguments.add("--output=" + partial);
+
+            long started = System.nanoTime();
+            Process process = new ProcessBuilder(arguments)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile.toFile()))
+                    .start();
+            log.println("[shard " + shard.id() + "] attempt " + attempt + " started as pid " + process.pid());
+
+            int exitCode;
+            try {
+                exitCode = process.waitFor();
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                throw e;
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+            if (exitCode == 0 && Files.exists(partial)) {
+                WordIndex index = WordIndex.open(partial);
+                log.println("[shard " + shard.id() + "] done in " + millis + " ms on attempt " + attempt + ": "
+                        + index.totalCount() + " words, " + index.wordCount() + " distinct");
+                return partial;
+            }
+            String reason = exitCode == 0 ? "left no result" : "exited with code " + exitCode;
+            if (attempt > retries) {
+                throw new IOException("Shard " + shard.id() + " failed after " + attempt + " attempts: worker "
+                        + reason + ", see " + logFile);
+            }
+            log.println("[shard " + shard.id() + "] attempt " + attempt + " " + reason + " after " + millis
+                    + " ms, retrying (" + attempt + "/" + retries + ")");
+        }
+    }
+}
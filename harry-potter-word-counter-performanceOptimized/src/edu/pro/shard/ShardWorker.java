@@ -0,0 +1,71 @@
+package edu.pro.shard;
+
+import edu.pro.count.WordCountTable;
+import edu.pro.gzip.GzipInput;
+import edu.pro.index.WordIndexWriter;
+import edu.pro.tokenize.ByteTokenizer;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Body of a worker process: counts the ranges of one shard and writes the counts as a word
+ * index, the partial result the coordinator merges. The index is written under a temporary
+ * name and moved into place when complete, so a worker that dies midway never leaves a
+ * partial result that looks finished.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class ShardWorker
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class ShardWorker {
+
+    private ShardWorker() {
+    }
+
+    /**
+     * Counts every range of a shard.
+     *
+     * @param shard the shard to count
+     * @return the table holding the counts
+     * @throws IOException if a file cannot be read
+     */
+    public static WordCountTable count(Shard shard) throws IOException {
+        WordCountTable table = new WordCountTable();
+        for (int i = 0; i < shard.rangeCount(); i++) {
+            Path file = shard.file(i);
+            if (GzipInput.isCompressed(file)) {
+                // Compressed files are never cut, so the range is the whole file
+                ByteTokenizer.tokenize(file, table);
+                continue;
+            }
+            long[] range = shard.range(i);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteTokenizer.tokenize(channel, range[0], range[1], table);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Counts the shard described by a manifest and writes its partial result.
+     *
+     * @param manifest the manifest of the shard
+     * @param output the index file to write
+     * @return the table holding the counts
+     * @throws IOException if a file cannot be read or the result cannot be written
+     */
+    public static WordCountTable run(Path manifest, Path output) throws IOException {
+        WordCountTable table = count(Shard.readManifest(manifest, -1));
+        Path temporary = output.resolveSibling(output.getFileName() + ".tmp");
+        WordIndexWriter.write(table, temporary);
+        Files.move(temporary, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return table;
+    }
+}
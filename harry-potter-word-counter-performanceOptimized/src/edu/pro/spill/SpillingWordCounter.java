@@ -0,0 +1,159 @@
+package edu.pro.spill;
+
+import edu.pro.count.WordCountTable;
+import edu.pro.index.EntrySink;
+import edu.pro.index.WordIndexMerger;
+import edu.pro.index.WordIndexWriter;
+import edu.pro.tokenize.TokenSink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Word counter with a memory budget. Words are counted in a {@link WordCountTable}; when the
+ * table grows past the budget it is written as a sorted run, in the word index format, and
+ * replaced by an empty one. The table may overshoot the budget by its last growth step, and
+ * sorting a run takes another 8 bytes per word. At the end the runs are merged in one
+ * streaming pass, so the final counts never have to fit in memory and any input can be
+ * counted under a fixed {@code -Xmx}. Runs and the merged output are read through windowed
+ * mappings, so they may grow past 2 GB.
+ *
+ * <p>Runs are written and read sequentially. When there are more runs than can be merged at
+ * once, groups of them are first merged into larger runs.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class SpillingWordCounter
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class SpillingWordCounter implements TokenSink, Closeable {
+
+    // Most runs merged at once, which bounds the open files and the heap of cursors
+    private static final int MAX_FAN_IN = 64;
+
+    private final long budgetBytes;
+    private final Path directory;
+    private WordCountTable table = new WordCountTable();
+
+    private final List<Path> runs = new ArrayList<>();
+    private int runNumber;
+    private int spills;
+    private long spilledBytes;
+    private int mergePasses;
+
+    /**
+     * Creates a counter spilling into a new temporary directory.
+     *
+     * @param budgetBytes the heap the counting table may use before it is spilled
+     * @param spillDirectory the directory to create the temporary directory in
+     * @throws IOException if the temporary directory cannot be created
+     */
+    public SpillingWordCounter(long budgetBytes, Path spillDirectory) throws IOException {
+        this.budgetBytes = budgetBytes;
+        this.directory = Files.createTempDirectory(spillDirectory, "word-runs-");
+    }
+
+    @Override
+    public void accept(byte[] buffer, int offset, int length) {
+        int id = table.add(buffer, offset, length, 1);
+        // The table only grows when a new word is inserted
+        if (id == table.size() - 1 && table.footprintBytes() > budgetBytes) {
+            try {
+                spill();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Merges the runs and the words still in memory, passing every distinct word with its
+     * total count to a sink in dictionary order.
+     *
+     * @param sink the sink receiving the merged entries
+     * @throws IOException if a run cannot be written or read
+     */
+    public void finish(EntrySink sink) throws IOException {
+        if (table.size() > 0 || runs.isEmpty()) {
+            spill();
+        }
+        while (runs.size() > MAX_FAN_IN) {
+            mergePasses++;
+            List<Path> merged = new ArrayList<>();
+            for (int from = 0; from < runs.size(); from += MAX_FAN_IN) {
+                List<Path> group = runs.subList(from, Math.min(from + MAX_FAN_IN, runs.size()));
+                Path run = nextRun();
+                WordIndexMerger.merge(group, run);
+                for (Path input : group) {
+                    Files.delete(input);
+                }
+                merged.add(run);
+            }
+            runs.clear();
+            runs.addAll(merged);
+        }
+        mergePasses++;
+        WordIndexMerger.merge(runs, sink);
+    }
+
+    /**
+     * Gets the number of times the table was spilled.
+     *
+     * @return the number of spills, including the final one
+     */
+    public int spills() {
+        return spills;
+    }
+
+    /**
+     * Gets the size of all spilled runs.
+     *
+     * @return the number of bytes written by spills
+     */
+    public long spilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * Gets the number of merge passes, the final one included.
+     *
+     * @return the number of merge passes
+     */
+    public int mergePasses() {
+        return mergePasses;
+    }
+
+    /**
+     * Deletes the runs and their directory.
+     *
+     * @throws IOException if a file cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+        runs.clear();
+        Files.deleteIfExists(directory);
+    }
+
+    private void spill() throws IOException {
+        Path run = nextRun();
+        WordIndexWriter.write(table, run);
+        // A cleared table would keep its grown arrays, and the next word could grow them again
+        table = new WordCountTable();
+        runs.add(run);
+        spills++;
+        spilledBytes += Files.size(run);
+    }
+
+    private Path nextRun() {
+        return directory.resolve("run-" + runNumber++ + ".widx");
+    }
+}
@@ -0,0 +1,73 @@
+package edu.pro.stream;
+
+import edu.pro.Word;
+
+import java.util.List;
+
+/**
+ * Immutable view of the streaming counts at the moment it was published.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class Snapshot
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class Snapshot {
+
+    private final long sequence;
+    private final long totalWords;
+    private final int distinctWords;
+    private final List<Word> topWords;
+
+    /**
+     * Constructs a Snapshot.
+     *
+     * @param sequence the number of the snapshot, starting from one
+     * @param totalWords the number of words counted so far
+     * @param distinctWords the number of distinct words counted so far
+     * @param topWords the most frequent words, most frequent first
+     */
+    public Snapshot(long sequence, long totalWords, int distinctWords, List<Word> topWords) {
+        this.sequence = sequence;
+        this.totalWords = totalWords;
+        this.distinctWords = distinctWords;
+        this.topWords = List.copyOf(topWords);
+    }
+
+    /**
+     * Gets the number of the snapshot.
+     *
+     * @return the sequence number, starting from one
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the number of words counted so far.
+     *
+     * @return the total number of words
+     */
+    public long getTotalWords() {
+        return totalWords;
+    }
+
+    /**
+     * Gets the number of distinct words counted so far.
+     *
+     * @return the number of distinct words
+     */
+    public int getDistinctWords() {
+        return distinctWords;
+    }
+
+    /**
+     * Gets the most frequent words.
+     *
+     * @return an unmodifiable list, most frequent first
+     */
+    public List<Word> getTopWords() {
+        return topWords;
+    }
+}
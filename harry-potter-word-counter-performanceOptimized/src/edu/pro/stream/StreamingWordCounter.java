@@ -0,0 +1,219 @@
+package edu.pro.stream;
+
+import edu.pro.count.WordCountTable;
+import edu.pro.rank.TopK;
+import edu.pro.tokenize.IncrementalTokenizer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Word counter for unbounded input that publishes a top-K snapshot on a fixed interval.
+ *
+ * <p>The ingesting thread counts into a private delta table. From time to time it hands the
+ * delta over through a lock-free queue and continues with an empty, recycled table. A
+ * publisher thread merges the handed-over deltas into the running totals and ranks them, so
+ * ingestion never waits for a snapshot and no data is scanned twice.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class StreamingWordCounter
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class StreamingWordCounter {
+
+    // Deltas are handed over several times per publication, so snapshots are not a full interval behind
+    private static final int HAND_OFFS_PER_INTERVAL = 4;
+
+    private final int top;
+    private final long intervalMillis;
+    private final long handOffNanos;
+    private final Consumer<Snapshot> listener;
+
+    // Deltas waiting for the publisher, and emptied tables the ingesting thread may reuse
+    private final Queue<WordCountTable> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<WordCountTable> spare = new ConcurrentLinkedQueue<>();
+
+    // Owned by the ingesting thread
+    private WordCountTable delta = new WordCountTable();
+    private long lastHandOff = System.nanoTime();
+
+    // Owned by the publisher, guarded by this
+    private final WordCountTable totals = new WordCountTable();
+    private long totalWords;
+    private long sequence;
+
+    private volatile Snapshot latest = new Snapshot(0, 0, 0, List.of());
+
+    /**
+     * Creates a counter.
+     *
+     * @param top the number of most frequent words in every snapshot
+     * @param intervalMillis the time between two snapshots in milliseconds
+     * @param listener receives every published snapshot on the publisher thread
+     */
+    public StreamingWordCounter(int top, long intervalMillis, Consumer<Snapshot> listener) {
+        this.top = top;
+        this.intervalMillis = intervalMillis;
+        this.handOffNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis) / HAND_OFFS_PER_INTERVAL;
+        this.listener = listener;
+    }
+
+    /**
+     * Counts the stream until its end, publishing snapshots meanwhile.
+     *
+     * @param input the stream to read, e.g. standard input
+     * @return the final snapshot covering the whole input
+     * @throws IOException if the stream cannot be read
+     */
+    public Snapshot ingest(InputStream input) throws IOException {
+        ScheduledExecutorService publisher = startPublisher();
+        try {
+            ReadableByteChannel channel = Channels.newChannel(input);
+            IncrementalTokenizer tokenizer = new IncrementalTokenizer(this::count);
+            do {
+                // The next read may block for a long time on a live stream, so hand off what is counted first
+                handOff(input.available() == 0);
+            } while (tokenizer.read(channel) >= 0);
+            tokenizer.finish();
+        } finally {
+            stopPublisher(publisher);
+        }
+        return finish();
+    }
+
+    /**
+     * Follows a growing file like {@code tail -f}: the file is read from the beginning, and
+     * when its end is reached the counter waits for more data. A file that shrinks is
+     * considered truncated and is read again from the start. The method returns only when
+     * the thread is interrupted.
+     *
+     * @param file the file to follow
+     * @param pollMillis the time to wait at the end of the file before checking again
+     * @return the final snapshot
+     * @throws IOException if the file cannot be read
+     */
+    public Snapshot follow(Path file, long pollMillis) throws IOException {
+        ScheduledExecutorService publisher = startPublisher();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            IncrementalTokenizer tokenizer = new IncrementalTokenizer(this::count);
+            while (!Thread.currentThread().isInterrupted()) {
+                if (channel.size() < channel.position()) {
+                    channel.position(0);
+                }
+                if (tokenizer.read(channel) > 0) {
+                    handOff(false);
+                    continue;
+                }
+                // Nothing new yet, so let the publisher see what has been counted so far
+                handOff(true);
+                try {
+                    Thread.sleep(pollMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            tokenizer.finish();
+        } finally {
+            stopPublisher(publisher);
+        }
+        return finish();
+    }
+
+    /**
+     * Gets the most recently published snapshot. Safe to call from any thread.
+     *
+     * @return the latest snapshot
+     */
+    public Snapshot latest() {
+        return latest;
+    }
+
+    private void count(byte[] buffer, int offset, int length) {
+        delta.add(buffer, offset, length, 1);
+    }
+
+    /**
+     * Passes the delta to the publisher. Never blocks.
+     *
+     * @param force whether to hand off even if the hand-off interval has not elapsed
+     */
+    private void handOff(boolean force) {
+        long now = System.nanoTime();
+        if (delta.size() == 0 || (!force && now - lastHandOff < handOffNanos)) {
+            return;
+        }
+        pending.add(delta);
+        WordCountTable reused = spare.poll();
+        delta = reused != null ? reused : new WordCountTable();
+        lastHandOff = now;
+    }
+
+    /**
+     * Merges the pending delta into the totals and publishes a new snapshot.
+     *
+     * @return the published snapshot
+     */
+    private synchronized Snapshot publish() {
+        WordCountTable received;
+        while ((received = pending.poll()) != null) {
+            absorb(received);
+            received.clear();
+            spare.add(received);
+        }
+
+        Snapshot snapshot = new Snapshot(++sequence, totalWords, totals.size(), TopK.words(totals, top));
+        latest = snapshot;
+        listener.accept(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Hands off the last delta and publishes the final snapshot.
+     *
+     * @return the final snapshot
+     */
+    private Snapshot finish() {
+        handOff(true);
+        return publish();
+    }
+
+    private void absorb(WordCountTable counted) {
+        for (int id = 0; id < counted.size(); id++) {
+            totalWords += counted.count(id);
+        }
+        totals.merge(counted);
+    }
+
+    private ScheduledExecutorService startPublisher() {
+        ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "word-snapshot-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        publisher.scheduleWithFixedDelay(this::publish, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return publisher;
+    }
+
+    private void stopPublisher(ScheduledExecutorService publisher) {
+        publisher.shutdown();
+        try {
+            publisher.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
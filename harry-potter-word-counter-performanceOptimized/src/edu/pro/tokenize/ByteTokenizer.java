@@ -0,0 +1,182 @@
+package edu.pro.tokenize;
+
+import edu.pro.gzip.GzipInput;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Tokenizer that scans ASCII bytes of a memory-mapped file directly, without decoding
+ * the text into characters. It matches the same words as the {@code [A-Za-z]+} pattern
+ * applied to a lower-cased line.
+ *
+ * <p>The inner loop is a {@link ScanBackend}, the scalar one unless the
+ * {@link VectorScanBackend SIMD one} is asked for through the {@code edu.pro.tokenizer}
+ * system property or {@link #useBackend}. The SIMD backend scans faster only once C2 has
+ * compiled the Vector API, which a one-shot run does not reach, and it needs the JVM to run
+ * with {@code --add-modules jdk.incubator.vector}.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class ByteTokenizer
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class ByteTokenizer {
+
+    // A single mapping cannot exceed 2 GB, so large files are mapped window by window
+    private static final long MAX_WINDOW_SIZE = 1L << 30;
+
+    // System property selecting the scan backend
+    public static final String BACKEND_PROPERTY = "edu.pro.tokenizer";
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    // Lower-case letter for every ASCII letter byte, zero for every other byte
+    private static final byte[] FOLD = new byte[256];
+
+    static {
+        for (char letter = 'a'; letter <= 'z'; letter++) {
+            FOLD[letter] = (byte) letter;
+            FOLD[Character.toUpperCase(letter)] = (byte) letter;
+        }
+    }
+
+    // Backend of the inner loop, chosen by the edu.pro.tokenizer system property unless set otherwise
+    private static volatile ScanBackend backend = createBackend(System.getProperty(BACKEND_PROPERTY, "auto"));
+
+    private ByteTokenizer() {
+    }
+
+    /**
+     * Tokenizes the whole file. A {@code .gz} file is decompressed while it is read.
+     *
+     * @param file the file to tokenize
+     * @param sink the sink receiving every word
+     * @throws IOException if the file cannot be read
+     */
+    public static void tokenize(Path file, TokenSink sink) throws IOException {
+        if (GzipInput.isCompressed(file)) {
+            try (ReadableByteChannel channel = GzipInput.newChannel(file)) {
+                IncrementalTokenizer tokenizer = new IncrementalTokenizer(sink);
+                while (tokenizer.read(channel) >= 0) {
+                    // Every read tokenizes the text inflated so far
+                }
+                tokenizer.finish();
+            }
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            tokenize(channel, 0, channel.size(), sink);
+        }
+    }
+
+    /**
+     * Tokenizes the byte range {@code [start, end)} of the channel. The range should begin
+     * and end on word boundaries, otherwise the words crossing them are cut.
+     *
+     * @param channel the channel to map
+     * @param start the position of the first byte to scan
+     * @param end the position after the last byte to scan
+     * @param sink the sink receiving every word
+     * @throws IOException if the channel cannot be mapped
+     */
+    public static void tokenize(FileChannel channel, long start, long end, TokenSink sink) throws IOException {
+        IncrementalTokenizer tokenizer = new IncrementalTokenizer(sink);
+        for (long position = start; position < end; position += MAX_WINDOW_SIZE) {
+            long windowSize = Math.min(MAX_WINDOW_SIZE, end - position);
+            tokenizer.feed(channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize));
+        }
+        // The last word of the range has no delimiter after it
+        tokenizer.finish();
+    }
+
+    /**
+     * Scans {@code buffer[from, to)}, folds letters to lower case in place and passes
+     * every complete word to the sink. A word touching {@code to} is not emitted, because
+     * it may continue in the next chunk.
+     *
+     * @param buffer the bytes to scan, modified in place
+     * @param from the index of the first byte to scan
+     * @param to the index after the last byte to scan
+     * @param sink the sink receiving every complete word
+     * @return the index where the unfinished trailing word starts, or {@code to} if there is none
+     */
+    public static int scan(byte[] buffer, int from, int to, TokenSink sink) {
+        return backend.scan(buffer, from, to, sink);
+    }
+
+    /**
+     * Gets the backend running {@link #scan}.
+     *
+     * @return the current backend
+     */
+    public static ScanBackend backend() {
+        return backend;
+    }
+
+    /**
+     * Selects the backend running {@link #scan} for every tokenizer of the JVM.
+     *
+     * @param name {@code scalar}, {@code vector}, or {@code auto} for the default, the scalar backend
+     * @throws IllegalArgumentException if the name is unknown
+     * @throws IllegalStateException if the vector backend is requested but not available
+     */
+    public static void useBackend(String name) {
+        backend = createBackend(name);
+    }
+
+    /**
+     * Checks whether the Vector API module was added to the JVM.
+     *
+     * @return {@code true} if the vector backend can be used
+     */
+    public static boolean isVectorAvailable() {
+        // A plain loop: findModule walks the layers with a stream, whose lambdas cost
+        // milliseconds at start-up, when this check runs
+        for (Module module : ModuleLayer.boot().modules()) {
+            if (module.getName().equals(VECTOR_MODULE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Folds an ASCII letter to lower case.
+     *
+     * @param value the byte to fold
+     * @return the lower-case letter, or zero if the byte is not a letter
+     */
+    static byte fold(byte value) {
+        return FOLD[value & 0xFF];
+    }
+
+    /**
+     * Checks whether the byte is an ASCII letter.
+     *
+     * @param value the byte to check
+     * @return {@code true} if the byte is a letter
+     */
+    public static boolean isLetter(byte value) {
+        return FOLD[value & 0xFF] != 0;
+    }
+
+    private static ScanBackend createBackend(String name) {
+        return switch (name) {
+            case ScalarScanBackend.NAME -> new ScalarScanBackend();
+            case VectorScanBackend.NAME -> {
+                if (!isVectorAvailable()) {
+                    throw new IllegalStateException("The vector tokenizer needs --add-modules " + VECTOR_MODULE);
+                }
+                yield new VectorScanBackend();
+            }
+            // End to end, a run over a few hundred MB is slower with the vector backend, see the README
+            case "auto" -> new ScalarScanBackend();
+            default -> throw new IllegalArgumentException("Unknown tokenizer: " + name);
+        };
+    }
+}
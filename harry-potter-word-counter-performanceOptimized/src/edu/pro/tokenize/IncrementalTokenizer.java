@@ -0,0 +1,91 @@
+package edu.pro.tokenize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Stateful front end of {@link ByteTokenizer} for input that arrives piece by piece. A word
+ * cut at the end of one piece is kept and completed by the next one, so the pieces may be
+ * split anywhere.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class IncrementalTokenizer
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class IncrementalTokenizer {
+
+    // Size of the reusable buffer the input is copied into
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final TokenSink sink;
+    private byte[] chunk = new byte[CHUNK_SIZE];
+
+    // Number of bytes of an unfinished word kept at the front of the chunk
+    private int carry;
+
+    /**
+     * Creates a tokenizer feeding the given sink.
+     *
+     * @param sink the sink receiving every word
+     */
+    public IncrementalTokenizer(TokenSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Tokenizes all remaining bytes of the buffer.
+     *
+     * @param source the bytes to tokenize, consumed by this call
+     */
+    public void feed(ByteBuffer source) {
+        while (source.hasRemaining()) {
+            ensureRoom();
+            int length = Math.min(chunk.length - carry, source.remaining());
+            source.get(chunk, carry, length);
+            scan(carry + length);
+        }
+    }
+
+    /**
+     * Reads one piece from the channel and tokenizes it.
+     *
+     * @param channel the channel to read from
+     * @return the number of bytes read, or {@code -1} at the end of the stream
+     * @throws IOException if the channel cannot be read
+     */
+    public int read(ReadableByteChannel channel) throws IOException {
+        ensureRoom();
+        int read = channel.read(ByteBuffer.wrap(chunk, carry, chunk.length - carry));
+        if (read > 0) {
+            scan(carry + read);
+        }
+        return read;
+    }
+
+    /**
+     * Emits the word left at the end of the input, if any.
+     */
+    public void finish() {
+        if (carry > 0) {
+            sink.accept(chunk, 0, carry);
+            carry = 0;
+        }
+    }
+
+    private void ensureRoom() {
+        // A word longer than the whole chunk needs a bigger chunk
+        if (carry == chunk.length) {
+            chunk = Arrays.copyOf(chunk, chunk.length * 2);
+        }
+    }
+
+    private void scan(int filled) {
+        int pending = ByteTokenizer.scan(chunk, 0, filled, sink);
+        carry = filled - pending;
+        System.arraycopy(chunk, pending, chunk, 0, carry);
+    }
+}
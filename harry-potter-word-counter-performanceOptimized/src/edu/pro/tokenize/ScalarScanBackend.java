@@ -0,0 +1,53 @@
+package edu.pro.tokenize;
+
+/**
+ * Scan backend looking at one byte at a time through a 256-entry folding table. It works
+ * on every JVM and is the reference the other backends must agree with.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class ScalarScanBackend
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class ScalarScanBackend implements ScanBackend {
+
+    public static final String NAME = "scalar";
+
+    @Override
+    public int scan(byte[] buffer, int from, int to, TokenSink sink) {
+        return scan(buffer, from, to, -1, sink);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    /**
+     * Scans {@code buffer[from, to)} while a word may already be open, which lets other
+     * backends finish the bytes they cannot process in bulk.
+     *
+     * @param buffer the bytes to scan, modified in place
+     * @param from the index of the first byte to scan
+     * @param to the index after the last byte to scan
+     * @param wordStart the index where the open word starts, or {@code -1} if no word is open
+     * @param sink the sink receiving every complete word
+     * @return the index where the unfinished trailing word starts, or {@code to} if there is none
+     */
+    static int scan(byte[] buffer, int from, int to, int wordStart, TokenSink sink) {
+        for (int i = from; i < to; i++) {
+            byte folded = ByteTokenizer.fold(buffer[i]);
+            if (folded != 0) {
+                buffer[i] = folded;
+                if (wordStart < 0) {
+                    wordStart = i;
+                }
+            } else if (wordStart >= 0) {
+                sink.accept(buffer, wordStart, i - wordStart);
+                wordStart = -1;
+            }
+        }
+        return wordStart < 0 ? to : wordStart;
+    }
+}
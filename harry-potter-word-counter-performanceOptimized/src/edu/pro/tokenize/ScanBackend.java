@@ -0,0 +1,34 @@
+package edu.pro.tokenize;
+
+/**
+ * Implementation of the inner tokenizer loop: classifying bytes as letters, folding them to
+ * lower case and finding word boundaries. {@link ByteTokenizer#scan} delegates to the
+ * backend chosen at startup.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class ScanBackend
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public interface ScanBackend {
+
+    /**
+     * Scans {@code buffer[from, to)}, folds letters to lower case in place and passes every
+     * complete word to the sink. A word touching {@code to} is not emitted.
+     *
+     * @param buffer the bytes to scan, modified in place
+     * @param from the index of the first byte to scan
+     * @param to the index after the last byte to scan
+     * @param sink the sink receiving every complete word
+     * @return the index where the unfinished trailing word starts, or {@code to} if there is none
+     */
+    int scan(byte[] buffer, int from, int to, TokenSink sink);
+
+    /**
+     * Gets the name the backend is selected by.
+     *
+     * @return the name
+     */
+    String name();
+}
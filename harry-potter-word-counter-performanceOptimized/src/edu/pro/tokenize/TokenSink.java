@@ -0,0 +1,24 @@
+package edu.pro.tokenize;
+
+/**
+ * Callback receiving the words found by a tokenizer.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class TokenSink
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+@FunctionalInterface
+public interface TokenSink {
+
+    /**
+     * Accepts one lower-cased word. The slice is only valid for the duration of the call,
+     * so implementations must copy the bytes if they want to keep them.
+     *
+     * @param buffer the buffer holding the word
+     * @param offset the index of the first byte of the word
+     * @param length the number of bytes in the word
+     */
+    void accept(byte[] buffer, int offset, int length);
+}
@@ -0,0 +1,385 @@
+package edu.pro.tokenize;
+
+import edu.pro.gzip.GzipInput;
+import edu.pro.normalize.Normalizer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Table-driven tokenizer for UTF-8 text in any script. Every code point is mapped to a
+ * character class by a 64 KB table covering the Basic Multilingual Plane, and a small
+ * deterministic automaton moves on the class. A word is a run of Unicode letters and
+ * combining marks, and these rules apply inside it:
+ * <ul>
+ *     <li>An apostrophe ({@code '} or {@code U+2019}) between letters stays in the word as
+ *     {@code '}, so {@code don't} and {@code don&#x2019;t} are one word.</li>
+ *     <li>A hyphen between letters joins the parts, as in {@code well-known}.</li>
+ *     <li>A hyphen at the end of a line joins the word with its continuation on the next line
+ *     and is dropped. A soft hyphen is always dropped.</li>
+ * </ul>
+ *
+ * <p>The automaton keeps its state between pieces of input, so pieces may be split anywhere,
+ * even inside a character. The letters of a word are collected in a reusable char buffer,
+ * passed through the {@link Normalizer} in place and handed to the sink as UTF-8 bytes.
+ * Nothing is allocated per word.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class UnicodeTokenizer
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class UnicodeTokenizer {
+
+    // Size of the reusable buffer the input is copied into
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    // A single mapping cannot exceed 2 GB, so large files are mapped window by window
+    private static final long MAX_WINDOW_SIZE = 1L << 30;
+
+    // Character classes
+    private static final int LETTER = 0;
+    private static final int MARK = 1;
+    private static final int APOSTROPHE = 2;
+    private static final int HYPHEN = 3;
+    private static final int SOFT_HYPHEN = 4;
+    private static final int LINE_FEED = 5;
+    private static final int CARRIAGE_RETURN = 6;
+    private static final int SPACE = 7;
+    private static final int OTHER = 8;
+    private static final int CLASSES = 9;
+
+    // States of the automaton
+    private static final int OUTSIDE = 0;
+    private static final int IN_WORD = 1;
+    private static final int AFTER_APOSTROPHE = 2;
+    private static final int AFTER_HYPHEN = 3;
+    private static final int AFTER_LINE_BREAK = 4;
+    private static final int STATES = 5;
+
+    // Actions taken on a transition, stored above the three bits of the next state
+    private static final int NOTHING = 0;
+    private static final int APPEND = 1;
+    private static final int EMIT = 2;
+    private static final int HOLD = 3;
+    private static final int APPEND_HELD = 4;
+
+    // Class of every code point of the Basic Multilingual Plane
+    private static final byte[] CLASS_OF = new byte[0x10000];
+
+    // Next state and action for every state and class
+    private static final byte[] TRANSITIONS = new byte[STATES * CLASSES];
+
+    // Char a held separator adds to the word if a letter follows it, zero for none
+    private static final char[] HELD_CHAR = new char[CLASSES];
+
+    static {
+        for (int codePoint = 0; codePoint < CLASS_OF.length; codePoint++) {
+            CLASS_OF[codePoint] = (byte) classify(codePoint);
+        }
+
+        // A word ends on any class without a rule of its own; outside a word nothing happens
+        for (int state = 0; state < STATES; state++) {
+            for (int type = 0; type < CLASSES; type++) {
+                on(state, type, OUTSIDE, state == OUTSIDE ? NOTHING : EMIT);
+            }
+        }
+        on(OUTSIDE, LETTER, IN_WORD, APPEND);
+        on(IN_WORD, LETTER, IN_WORD, APPEND);
+        on(IN_WORD, MARK, IN_WORD, APPEND);
+        on(IN_WORD, APOSTROPHE, AFTER_APOSTROPHE, HOLD);
+        on(IN_WORD, HYPHEN, AFTER_HYPHEN, HOLD);
+        on(IN_WORD, SOFT_HYPHEN, AFTER_HYPHEN, HOLD);
+        on(AFTER_APOSTROPHE, LETTER, IN_WORD, APPEND_HELD);
+        on(AFTER_HYPHEN, LETTER, IN_WORD, APPEND_HELD);
+        on(AFTER_HYPHEN, CARRIAGE_RETURN, AFTER_HYPHEN, NOTHING);
+        on(AFTER_HYPHEN, LINE_FEED, AFTER_LINE_BREAK, NOTHING);
+        on(AFTER_LINE_BREAK, SPACE, AFTER_LINE_BREAK, NOTHING);
+        // The hyphen of a word broken across lines is dropped
+        on(AFTER_LINE_BREAK, LETTER, IN_WORD, APPEND);
+
+        HELD_CHAR[APOSTROPHE] = '\'';
+        HELD_CHAR[HYPHEN] = '-';
+    }
+
+    private final TokenSink sink;
+    private final Normalizer normalizer;
+
+    private byte[] chunk = new byte[CHUNK_SIZE];
+    // Number of bytes of an incomplete character kept at the front of the chunk
+    private int carry;
+
+    private int state = OUTSIDE;
+    private char held;
+    private char[] word = new char[64];
+    private int wordLength;
+    private byte[] encoded = new byte[256];
+
+    /**
+     * Creates a tokenizer feeding the given sink.
+     *
+     * @param sink the sink receiving every word as UTF-8 bytes
+     * @param normalizer the normalization applied to every word before it is passed on
+     */
+    public UnicodeTokenizer(TokenSink sink, Normalizer normalizer) {
+        this.sink = sink;
+        this.normalizer = normalizer;
+    }
+
+    /**
+     * Tokenizes the whole file, continuing the words of earlier input. A {@code .gz} file is
+     * decompressed while it is read.
+     *
+     * @param file the file to tokenize
+     * @throws IOException if the file cannot be read
+     */
+    public void tokenize(Path file) throws IOException {
+        if (GzipInput.isCompressed(file)) {
+            try (ReadableByteChannel channel = GzipInput.newChannel(file)) {
+                while (read(channel) >= 0) {
+                    // Every read tokenizes the text inflated so far
+                }
+            }
+        } else {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                for (long position = 0; position < channel.size(); position += MAX_WINDOW_SIZE) {
+                    long windowSize = Math.min(MAX_WINDOW_SIZE, channel.size() - position);
+                    feed(channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize));
+                }
+            }
+        }
+        finish();
+    }
+
+    /**
+     * Tokenizes all remaining bytes of the buffer.
+     *
+     * @param source the bytes to tokenize, consumed by this call
+     */
+    public void feed(ByteBuffer source) {
+        while (source.hasRemaining()) {
+            int length = Math.min(chunk.length - carry, source.remaining());
+            source.get(chunk, carry, length);
+            scan(carry + length);
+        }
+    }
+
+    /**
+     * Reads one piece from the channel and tokenizes it.
+     *
+     * @param channel the channel to read from
+     * @return the number of bytes read, or {@code -1} at the end of the stream
+     * @throws IOException if the channel cannot be read
+     */
+    public int read(ReadableByteChannel channel) throws IOException {
+        int read = channel.read(ByteBuffer.wrap(chunk, carry, chunk.length - carry));
+        if (read > 0) {
+            scan(carry + read);
+        }
+        return read;
+    }
+
+    /**
+     * Ends the input: an incomplete character left at the end counts as a delimiter, and the
+     * last word is emitted.
+     */
+    public void finish() {
+        carry = 0;
+        if (state != OUTSIDE) {
+            emit();
+            state = OUTSIDE;
+        }
+    }
+
+    private void scan(int filled) {
+        int current = state;
+        int i = 0;
+        while (i < filled) {
+            int lead = chunk[i];
+            if (lead >= 0 && current <= IN_WORD && CLASS_OF[lead] == LETTER) {
+                // Runs of ASCII letters, the bulk of most text, are copied without a transition
+                char[] letters = word;
+                int length = wordLength;
+                do {
+                    if (length == letters.length) {
+                        letters = Arrays.copyOf(letters, length * 2);
+                        word = letters;
+                    }
+                    letters[length++] = (char) lead;
+                } while (++i < filled && (lead = chunk[i]) >= 0 && CLASS_OF[lead] == LETTER);
+                wordLength = length;
+                current = IN_WORD;
+                continue;
+            }
+
+            int codePoint;
+            int size;
+            if (lead >= 0) {
+                codePoint = lead;
+                size = 1;
+            } else {
+                size = sequenceLength(lead);
+                if (size > filled - i) {
+                    // The rest of the character comes with the next piece
+                    break;
+                }
+                codePoint = size == 0 ? -1 : decode(i, size);
+                if (codePoint < 0) {
+                    // Malformed input separates words like any other non-letter
+                    size = 1;
+                }
+            }
+            i += size;
+            int type = codePoint < 0 ? OTHER : codePoint < CLASS_OF.length ? CLASS_OF[codePoint] : classify(codePoint);
+
+            // Outside a word or inside one, a letter is appended and anything else outside is skipped
+            if (current <= IN_WORD) {
+                if (type == LETTER) {
+                    append(codePoint);
+                    current = IN_WORD;
+                    continue;
+                }
+                if (current == OUTSIDE) {
+                    continue;
+                }
+            }
+
+            int transition = TRANSITIONS[current * CLASSES + type];
+            current = transition & 7;
+            switch (transition >>> 3) {
+                case APPEND -> append(codePoint);
+                case EMIT -> emit();
+                case HOLD -> held = HELD_CHAR[type];
+                case APPEND_HELD -> {
+                    if (held != 0) {
+                        append(held);
+                    }
+                    append(codePoint);
+                }
+                default -> {
+                }
+            }
+        }
+        state = current;
+        carry = filled - i;
+        System.arraycopy(chunk, i, chunk, 0, carry);
+    }
+
+    // Number of bytes of the sequence a lead byte starts, or zero if it cannot start one
+    private static int sequenceLength(int lead) {
+        int value = lead & 0xFF;
+        if (value >= 0xC2 && value <= 0xDF) {
+            return 2;
+        } else if (value >= 0xE0 && value <= 0xEF) {
+            return 3;
+        } else if (value >= 0xF0 && value <= 0xF4) {
+            return 4;
+        }
+        return 0;
+    }
+
+    // Decodes a complete sequence, or returns -1 if it is malformed or overlong
+    private int decode(int from, int size) {
+        int codePoint = chunk[from] & (0x7F >> size);
+        for (int i = from + 1; i < from + size; i++) {
+            int next = chunk[i];
+            if ((next & 0xC0) != 0x80) {
+                return -1;
+            }
+            codePoint = codePoint << 6 | next & 0x3F;
+        }
+        boolean valid = switch (size) {
+            case 2 -> true;
+            case 3 -> codePoint >= 0x800 && !Character.isSurrogate((char) codePoint);
+            default -> codePoint >= 0x10000 && codePoint <= Character.MAX_CODE_POINT;
+        };
+        return valid ? codePoint : -1;
+    }
+
+    private void append(int codePoint) {
+        if (wordLength + 2 > word.length) {
+            word = Arrays.copyOf(word, word.length * 2);
+        }
+        if (codePoint < 0x10000) {
+            word[wordLength++] = (char) codePoint;
+        } else {
+            wordLength += Character.toChars(codePoint, word, wordLength);
+        }
+    }
+
+    private void emit() {
+        int length = normalizer.normalize(word, wordLength);
+        wordLength = 0;
+        if (length > 0) {
+            sink.accept(encoded, 0, encode(length));
+        }
+    }
+
+    // Encodes word[0, length) as UTF-8 into the reusable byte buffer
+    private int encode(int length) {
+        if (length * 3 > encoded.length) {
+            encoded = new byte[Math.max(length * 3, encoded.length * 2)];
+        }
+        int size = 0;
+        char value;
+        while (size < length && (value = word[size]) < 0x80) {
+            encoded[size++] = (byte) value;
+        }
+        for (int i = size; i < length; i++) {
+            value = word[i];
+            if (value < 0x80) {
+                encoded[size++] = (byte) value;
+            } else if (value < 0x800) {
+                encoded[size++] = (byte) (0xC0 | value >> 6);
+                encoded[size++] = (byte) (0x80 | value & 0x3F);
+            } else if (Character.isHighSurrogate(value) && i + 1 < length && Character.isLowSurrogate(word[i + 1])) {
+                int codePoint = Character.toCodePoint(value, word[++i]);
+                encoded[size++] = (byte) (0xF0 | codePoint >> 18);
+                encoded[size++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                encoded[size++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                encoded[size++] = (byte) (0x80 | codePoint & 0x3F);
+            } else {
+                encoded[size++] = (byte) (0xE0 | value >> 12);
+                encoded[size++] = (byte) (0x80 | value >> 6 & 0x3F);
+                encoded[size++] = (byte) (0x80 | value & 0x3F);
+            }
+        }
+        return size;
+    }
+
+    private static int classify(int codePoint) {
+        switch (codePoint) {
+            case '\'', 0x2019:
+                return APOSTROPHE;
+            case '-', 0x2010, 0x2011:
+                return HYPHEN;
+            case 0x00AD:
+                return SOFT_HYPHEN;
+            case '\n', 0x0085, 0x2028:
+                return LINE_FEED;
+            case '\r':
+                return CARRIAGE_RETURN;
+            case ' ', '\t', 0x00A0:
+                return SPACE;
+            default:
+                break;
+        }
+        if (Character.isLetter(codePoint)) {
+            return LETTER;
+        }
+        return switch (Character.getType(codePoint)) {
+            case Character.NON_SPACING_MARK, Character.COMBINING_SPACING_MARK, Character.ENCLOSING_MARK -> MARK;
+            default -> OTHER;
+        };
+    }
+
+    private static void on(int state, int type, int next, int action) {
+        TRANSITIONS[state * CLASSES + type] = (byte) (action << 3 | next);
+    }
+}
@@ -0,0 +1,88 @@
+package edu.pro.tokenize;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Scan backend built on the incubating Vector API. Each step loads one vector of bytes (32
+ * with AVX2, 64 with AVX-512), classifies all of them as letters with two SIMD comparisons,
+ * folds the letters to lower case with a blend and turns the letter mask into a bitmask.
+ * Word starts and ends are then found with bit arithmetic on that mask, so a step costs a
+ * few instructions plus one iteration per boundary, and a run of letters or non-letters
+ * spanning a whole vector costs no branch per byte.
+ *
+ * <p>Only usable when the JVM runs with {@code --add-modules jdk.incubator.vector};
+ * {@link ByteTokenizer} checks that before loading this class.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class VectorScanBackend
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class VectorScanBackend implements ScanBackend {
+
+    public static final String NAME = "vector";
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    // Lane masks are read as a long, which holds at most 64 lanes
+    private static final int LANES = Math.min(SPECIES.length(), 64);
+    private static final long ALL_LANES = LANES == 64 ? -1L : (1L << LANES) - 1;
+
+    // Setting bit 5 maps an ASCII upper-case letter to lower case and keeps lower-case ones
+    private static final byte CASE_BIT = 0x20;
+
+    @Override
+    public int scan(byte[] buffer, int from, int to, TokenSink sink) {
+        int wordStart = -1;
+        int i = from;
+        for (int bound = to - SPECIES.length(); i <= bound; i += LANES) {
+            ByteVector bytes = ByteVector.fromArray(SPECIES, buffer, i);
+            ByteVector lower = bytes.or(CASE_BIT);
+            // Bytes above 127 are negative, so they fail the first comparison
+            VectorMask<Byte> letters = lower.compare(VectorOperators.GE, (byte) 'a')
+                    .and(lower.compare(VectorOperators.LE, (byte) 'z'));
+            long mask = letters.toLong() & ALL_LANES;
+
+            if (mask == 0) {
+                if (wordStart >= 0) {
+                    sink.accept(buffer, wordStart, i - wordStart);
+                    wordStart = -1;
+                }
+                continue;
+            }
+            bytes.blend(lower, letters).intoArray(buffer, i);
+            if (mask == ALL_LANES) {
+                if (wordStart < 0) {
+                    wordStart = i;
+                }
+                continue;
+            }
+
+            // A lane starts a word if it is a letter and the lane before is not, and ends
+            // one if it is not and the lane before is; lane -1 is the open word, if any
+            long previous = (mask << 1) | (wordStart >= 0 ? 1 : 0);
+            long boundaries = (mask ^ previous) & ALL_LANES;
+            while (boundaries != 0) {
+                int lane = Long.numberOfTrailingZeros(boundaries);
+                if (wordStart < 0) {
+                    wordStart = i + lane;
+                } else {
+                    sink.accept(buffer, wordStart, i + lane - wordStart);
+                    wordStart = -1;
+                }
+                boundaries &= boundaries - 1;
+            }
+        }
+        // The tail is shorter than a vector
+        return ScalarScanBackend.scan(buffer, i, to, wordStart, sink);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+}
@@ -0,0 +1,113 @@
+package edu.pro.trend;
+
+import java.util.Arrays;
+
+/**
+ * Exponentially decayed word scores: an occurrence counts 1 when it happens and half as much
+ * after every half-life. Decaying every score on every tick would touch the whole vocabulary,
+ * so the scores are kept in units of a fixed landmark time instead (forward decay). A new
+ * occurrence is added with weight {@code e^(rate * (now - landmark))}, and every score is
+ * multiplied by the same {@code e^(-rate * (now - landmark))} when it is read. Adding costs
+ * O(1), and the stored scores rank the words exactly as the decayed ones do.
+ *
+ * <p>The weights grow with time, so once they get large the scores are rescaled to a new
+ * landmark in one pass. That pass happens about once every 300 half-lives.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class DecayedScores
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class DecayedScores {
+
+    // Weights up to e^200 keep the scores far from the double limit of about e^709
+    private static final double MAX_EXPONENT = 200;
+
+    private final long halfLifeMillis;
+    private final double rate;
+    private long landmark;
+    private double[] scores = new double[1024];
+
+    /**
+     * Creates empty scores.
+     *
+     * @param halfLifeMillis the time after which an occurrence counts half
+     * @param nowMillis the current time, used as the first landmark
+     */
+    public DecayedScores(long halfLifeMillis, long nowMillis) {
+        if (halfLifeMillis <= 0) {
+            throw new IllegalArgumentException("Half-life must be positive: " + halfLifeMillis);
+        }
+        this.halfLifeMillis = halfLifeMillis;
+        this.rate = Math.log(2) / halfLifeMillis;
+        this.landmark = nowMillis;
+    }
+
+    /**
+     * Adds occurrences of a word that happened at the given time.
+     *
+     * @param id the word id
+     * @param count the number of occurrences
+     * @param nowMillis the time of the occurrences, not before earlier calls
+     */
+    public void add(int id, int count, long nowMillis) {
+        double exponent = rate * (nowMillis - landmark);
+        if (exponent > MAX_EXPONENT) {
+            rescale(nowMillis);
+            exponent = 0;
+        }
+        if (id >= scores.length) {
+            scores = Arrays.copyOf(scores, Math.max(scores.length * 2, id + 1));
+        }
+        scores[id] += count * Math.exp(exponent);
+    }
+
+    /**
+     * Gets the decayed score of a word.
+     *
+     * @param id the word id
+     * @param nowMillis the time to decay the score to
+     * @return the score
+     */
+    public double score(int id, long nowMillis) {
+        return id < scores.length ? scores[id] * Math.exp(-rate * (nowMillis - landmark)) : 0;
+    }
+
+    /**
+     * Gets a key that orders the words by score. Scores are never negative, and the bits of
+     * non-negative doubles sort the same way as the doubles themselves.
+     *
+     * @param id the word id
+     * @return the ranking key, zero for a word never seen
+     */
+    public long rankKey(int id) {
+        return id < scores.length ? Double.doubleToRawLongBits(scores[id]) : 0;
+    }
+
+    /**
+     * Gets the half-life.
+     *
+     * @return the half-life in milliseconds
+     */
+    public long halfLifeMillis() {
+        return halfLifeMillis;
+    }
+
+    /**
+     * Estimates the heap used by the scores.
+     *
+     * @return the estimated size in bytes
+     */
+    public long footprintBytes() {
+        return 16L + scores.length * 8L;
+    }
+
+    private void rescale(long nowMillis) {
+        double factor = Math.exp(-rate * (nowMillis - landmark));
+        for (int id = 0; id < scores.length; id++) {
+            scores[id] *= factor;
+        }
+        landmark = nowMillis;
+    }
+}
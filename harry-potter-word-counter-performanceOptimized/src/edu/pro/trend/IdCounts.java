@@ -0,0 +1,128 @@
+package edu.pro.trend;
+
+import edu.pro.count.SlotHash;
+
+import java.util.Arrays;
+
+/**
+ * Primitive map from word ids to counts, remembering the ids in the order they were first
+ * added. Clearing touches only the slots in use, so a map reused for many small batches
+ * costs nothing for its spare capacity.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class IdCounts
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+final class IdCounts {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Slots hold index + 1 into the id and count columns, so that zero can mark an empty slot
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Adds to the count of an id.
+     *
+     * @param id the word id
+     * @param count the amount to add
+     */
+    void add(int id, int count) {
+        int mask = slots.length - 1;
+        for (int slot = mix(id) & mask; ; slot = (slot + 1) & mask) {
+            int index = slots[slot] - 1;
+            if (index < 0) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                    counts = Arrays.copyOf(counts, size * 2);
+                }
+                ids[size] = id;
+                counts[size] = count;
+                slots[slot] = ++size;
+                // Keep the load factor at most one half, so probe sequences stay short
+                if (size * 2 > slots.length) {
+                    rehash(slots.length * 2);
+                }
+                return;
+            }
+            if (ids[index] == id) {
+                counts[index] += count;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of ids.
+     *
+     * @return the number of ids
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the id at a position.
+     *
+     * @param index the position, below {@link #size()}
+     * @return the word id
+     */
+    int id(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Gets the count at a position.
+     *
+     * @param index the position, below {@link #size()}
+     * @return the count of the id at that position
+     */
+    int count(int index) {
+        return counts[index];
+    }
+
+    /**
+     * Removes every id, keeping the capacity.
+     */
+    void clear() {
+        int mask = slots.length - 1;
+        for (int index = 0; index < size; index++) {
+            // Emptying the slots of the ids in use is enough, every other slot is already empty
+            for (int slot = mix(ids[index]) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                slots[slot] = 0;
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * Estimates the heap used by the map.
+     *
+     * @return the estimated size in bytes
+     */
+    long footprintBytes() {
+        return 16L + slots.length * 4L + ids.length * 4L + counts.length * 4L;
+    }
+
+    private void rehash(int capacity) {
+        int[] rehashed = new int[capacity];
+        int mask = capacity - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = mix(ids[index]) & mask;
+            while (rehashed[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            rehashed[slot] = index + 1;
+        }
+        slots = rehashed;
+    }
+
+    private static int mix(int id) {
+        // Ids are dense, so they are scrambled to keep neighbouring ids out of neighbouring slots
+        return SlotHash.spread(id);
+    }
+}
@@ -0,0 +1,58 @@
+package edu.pro.trend;
+
+/**
+ * Word with a fractional score, such as an exponentially decayed count.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class ScoredWord
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class ScoredWord {
+
+    private final String wordContent;
+    private final double score;
+
+    /**
+     * Constructs a ScoredWord.
+     *
+     * @param wordContent the content of the word
+     * @param score the score of the word
+     */
+    public ScoredWord(String wordContent, double score) {
+        this.wordContent = wordContent;
+        this.score = score;
+    }
+
+    /**
+     * Gets the content of the word.
+     *
+     * @return the content of the word
+     */
+    public String getWordContent() {
+        return wordContent;
+    }
+
+    /**
+     * Gets the score of the word.
+     *
+     * @return the score
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Provides a string representation of the ScoredWord object.
+     *
+     * @return a string representation of the ScoredWord object
+     */
+    @Override
+    public String toString() {
+        return "Word{" +
+                "content='" + wordContent + '\'' +
+                ", score=" + String.format("%.2f", score) +
+                '}';
+    }
+}
@@ -0,0 +1,148 @@
+package edu.pro.trend;
+
+import java.util.Arrays;
+
+/**
+ * Word counts over the most recent span of time, kept as a ring of buckets. Each bucket holds
+ * the counts of one slice of the span, and a running total per word is the sum of all
+ * buckets. When time moves into a new slice the ring turns by one bucket: the oldest bucket
+ * is subtracted from the totals and reused. Nothing is ever recounted, and every counted word
+ * is subtracted exactly once, so turning costs O(1) per counted word.
+ *
+ * <p>The window covers the current, partly filled slice and the {@code buckets - 1} slices
+ * before it, so its span is only accurate to one slice.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class SlidingWindow
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class SlidingWindow {
+
+    private final String name;
+    private final long spanMillis;
+    private final long bucketMillis;
+    private final IdCounts[] buckets;
+
+    // Bucket holding the current slice, and the number of that slice since the epoch
+    private int head;
+    private long slice;
+
+    // Sum of all buckets by word id
+    private int[] totals = new int[1024];
+    private long total;
+
+    /**
+     * Creates an empty window.
+     *
+     * @param name the label of the window, e.g. {@code 1h}
+     * @param spanMillis the time covered by the window
+     * @param buckets the number of slices the span is divided into
+     * @param nowMillis the current time
+     */
+    public SlidingWindow(String name, long spanMillis, int buckets, long nowMillis) {
+        if (buckets < 1 || spanMillis < buckets) {
+            throw new IllegalArgumentException("A window of " + spanMillis + " ms cannot have " + buckets + " buckets");
+        }
+        this.name = name;
+        this.spanMillis = spanMillis;
+        this.bucketMillis = spanMillis / buckets;
+        this.buckets = new IdCounts[buckets];
+        for (int i = 0; i < buckets; i++) {
+            this.buckets[i] = new IdCounts();
+        }
+        this.slice = nowMillis / bucketMillis;
+    }
+
+    /**
+     * Turns the ring to the slice holding the given time, expiring the slices left behind.
+     * A gap longer than the whole span expires every bucket once.
+     *
+     * @param nowMillis the current time
+     */
+    public void advance(long nowMillis) {
+        long target = nowMillis / bucketMillis;
+        long steps = Math.min(target - slice, buckets.length);
+        for (long step = 0; step < steps; step++) {
+            head = (head + 1) % buckets.length;
+            expire(buckets[head]);
+        }
+        if (target > slice) {
+            slice = target;
+        }
+    }
+
+    /**
+     * Adds to the count of a word in the current slice.
+     *
+     * @param id the word id
+     * @param count the amount to add
+     */
+    public void add(int id, int count) {
+        if (id >= totals.length) {
+            totals = Arrays.copyOf(totals, Math.max(totals.length * 2, id + 1));
+        }
+        buckets[head].add(id, count);
+        totals[id] += count;
+        total += count;
+    }
+
+    /**
+     * Gets the count of a word within the window.
+     *
+     * @param id the word id
+     * @return the count over the span
+     */
+    public int count(int id) {
+        return id < totals.length ? totals[id] : 0;
+    }
+
+    /**
+     * Gets the number of words counted within the window.
+     *
+     * @return the sum of all counts over the span
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * Gets the label of the window.
+     *
+     * @return the name given at construction
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Gets the time covered by the window.
+     *
+     * @return the span in milliseconds
+     */
+    public long spanMillis() {
+        return spanMillis;
+    }
+
+    /**
+     * Estimates the heap used by the buckets and the totals.
+     *
+     * @return the estimated size in bytes
+     */
+    public long footprintBytes() {
+        long bytes = 16L + totals.length * 4L;
+        for (IdCounts bucket : buckets) {
+            bytes += bucket.footprintBytes();
+        }
+        return bytes;
+    }
+
+    private void expire(IdCounts bucket) {
+        for (int index = 0; index < bucket.size(); index++) {
+            totals[bucket.id(index)] -= bucket.count(index);
+            total -= bucket.count(index);
+        }
+        bucket.clear();
+    }
+}
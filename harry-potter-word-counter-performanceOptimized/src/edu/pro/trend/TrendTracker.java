@@ -0,0 +1,170 @@
+package edu.pro.trend;
+
+import edu.pro.Word;
+import edu.pro.count.WordCountTable;
+import edu.pro.rank.TopK;
+import edu.pro.tokenize.TokenSink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntToLongFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Word trends of a live text feed: counts over sliding windows such as the last minute, hour
+ * and day, and exponentially decayed scores that favour recent words.
+ *
+ * <p>The reading thread counts words into a private delta table, as the streaming counter
+ * does, and calls {@link #advance()} after each read. Advancing assigns the delta words their
+ * ids, turns the windows to the current time and adds the delta to every window and to the
+ * decayed scores, so each distinct word of a read costs one update per structure rather than
+ * each occurrence. Queries may come from any thread; they see the words up to the last advance.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class TrendTracker
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class TrendTracker implements TokenSink {
+
+    private final LongSupplier clock;
+
+    // Owned by the reading thread
+    private final WordCountTable delta = new WordCountTable();
+
+    // Guarded by this: word ids with all-time counts, the windows and the decayed scores
+    private final WordCountTable dictionary = new WordCountTable();
+    private final List<SlidingWindow> windows = new ArrayList<>();
+    private final DecayedScores decayed;
+
+    /**
+     * Creates a tracker.
+     *
+     * @param windowSpans the span in milliseconds of every window by name, in display order
+     * @param buckets the number of buckets of each window
+     * @param halfLifeMillis the half-life of the decayed scores
+     * @param clock the source of the current time in milliseconds
+     */
+    public TrendTracker(Map<String, Long> windowSpans, int buckets, long halfLifeMillis, LongSupplier clock) {
+        this.clock = clock;
+        long now = clock.getAsLong();
+        windowSpans.forEach((name, span) -> windows.add(new SlidingWindow(name, span, buckets, now)));
+        this.decayed = new DecayedScores(halfLifeMillis, now);
+    }
+
+    @Override
+    public void accept(byte[] buffer, int offset, int length) {
+        delta.add(buffer, offset, length, 1);
+    }
+
+    /**
+     * Moves the words counted since the last call into the windows and the decayed scores, at
+     * the current time of the clock. Must be called by the thread feeding the words.
+     */
+    public void advance() {
+        synchronized (this) {
+            long now = clock.getAsLong();
+            for (SlidingWindow window : windows) {
+                window.advance(now);
+            }
+
+            byte[] arena = delta.arena();
+            for (int deltaId = 0; deltaId < delta.size(); deltaId++) {
+                int count = delta.count(deltaId);
+                int id = dictionary.add(arena, delta.wordOffset(deltaId), delta.wordLength(deltaId), count);
+                for (SlidingWindow window : windows) {
+                    window.add(id, count);
+                }
+                decayed.add(id, count, now);
+            }
+        }
+        delta.clear();
+    }
+
+    /**
+     * Gets the names of the windows.
+     *
+     * @return the window names in display order
+     */
+    public synchronized List<String> windowNames() {
+        List<String> names = new ArrayList<>(windows.size());
+        for (SlidingWindow window : windows) {
+            names.add(window.name());
+        }
+        return names;
+    }
+
+    /**
+     * Selects the most frequent words of a window, ties broken alphabetically. Windows turn
+     * only when words are advanced, so a quiet feed shows its last active span.
+     *
+     * @param name the name of the window
+     * @param k the maximum number of words to return
+     * @return the selected words, most frequent first
+     * @throws IllegalArgumentException if there is no window of that name
+     */
+    public synchronized List<Word> top(String name, int k) {
+        for (SlidingWindow window : windows) {
+            if (window.name().equals(name)) {
+                List<Word> words = new ArrayList<>();
+                for (int id : rank(k, window::count)) {
+                    words.add(new Word(dictionary.word(id), window.count(id)));
+                }
+                return words;
+            }
+        }
+        throw new IllegalArgumentException("Unknown window: " + name);
+    }
+
+    /**
+     * Selects the words with the highest decayed scores, ties broken alphabetically.
+     *
+     * @param k the maximum number of words to return
+     * @return the selected words, highest score first
+     */
+    public synchronized List<ScoredWord> topDecayed(int k) {
+        long now = clock.getAsLong();
+        List<ScoredWord> words = new ArrayList<>();
+        for (int id : rank(k, decayed::rankKey)) {
+            words.add(new ScoredWord(dictionary.word(id), decayed.score(id, now)));
+        }
+        return words;
+    }
+
+    /**
+     * Selects the most frequent words since the tracker was created.
+     *
+     * @param k the maximum number of words to return
+     * @return the selected words, most frequent first
+     */
+    public synchronized List<Word> topAllTime(int k) {
+        return TopK.words(dictionary, k);
+    }
+
+    /**
+     * Estimates the heap used by the dictionary, the windows and the scores.
+     *
+     * @return the estimated size in bytes
+     */
+    public synchronized long footprintBytes() {
+        long bytes = dictionary.footprintBytes() + decayed.footprintBytes();
+        for (SlidingWindow window : windows) {
+            bytes += window.footprintBytes();
+        }
+        return bytes;
+    }
+
+    private int[] rank(int k, IntToLongFunction key) {
+        TopK topK = new TopK(k, dictionary::compareWords);
+        for (int id = 0; id < dictionary.size(); id++) {
+            long value = key.applyAsLong(id);
+            // Words that left the window are not ranked at all
+            if (value > 0) {
+                topK.offer(id, value);
+            }
+        }
+        return topK.ids();
+    }
+}
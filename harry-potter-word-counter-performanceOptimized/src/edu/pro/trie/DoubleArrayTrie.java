@@ -0,0 +1,293 @@
+package edu.pro.trie;
+
+import edu.pro.Word;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Read-only double-array trie of words and their counts, built by
+ * {@link DoubleArrayTrieBuilder} or mapped from a file written by {@link #write(Path)}. A
+ * lookup follows one slot per byte of the word, and words sharing a prefix share its nodes.
+ *
+ * <p>Every node keeps the highest count below it, so the most frequent completions of a
+ * prefix are found best first: only the branches that can still beat the selected words are
+ * opened. Safe to use from several threads.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class DoubleArrayTrie
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class DoubleArrayTrie {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final IntBuffer base;
+    private final IntBuffer check;
+    private final IntBuffer max;
+    private final IntBuffer links;
+    private final int slots;
+    private final long wordCount;
+    private final long totalCount;
+    private final boolean mapped;
+
+    DoubleArrayTrie(int[] base, int[] check, int[] max, int[] links, long wordCount, long totalCount) {
+        this(IntBuffer.wrap(base), IntBuffer.wrap(check), IntBuffer.wrap(max), IntBuffer.wrap(links),
+                wordCount, totalCount, false);
+    }
+
+    private DoubleArrayTrie(IntBuffer base, IntBuffer check, IntBuffer max, IntBuffer links,
+                            long wordCount, long totalCount, boolean mapped) {
+        this.base = base;
+        this.check = check;
+        this.max = max;
+        this.links = links;
+        this.slots = base.limit();
+        this.wordCount = wordCount;
+        this.totalCount = totalCount;
+        this.mapped = mapped;
+    }
+
+    /**
+     * Maps a trie file. The slots are read straight from the mapping, not copied to the heap.
+     *
+     * @param file the trie file
+     * @return the opened trie
+     * @throws IOException if the file cannot be mapped or is not a trie
+     */
+    public static DoubleArrayTrie open(Path file) throws IOException {
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Trie larger than 2 GB: " + file);
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (data.capacity() < TrieFormat.HEADER_SIZE || data.getInt(0) != TrieFormat.MAGIC) {
+            throw new IOException("Not a word trie: " + file);
+        }
+        if (data.getInt(4) != TrieFormat.VERSION) {
+            throw new IOException("Unsupported word trie version " + data.getInt(4) + ": " + file);
+        }
+        int slots = data.getInt(8);
+        if (slots < 1 || data.capacity() != TrieFormat.HEADER_SIZE + (long) TrieFormat.COLUMNS * slots * 4) {
+            throw new IOException("Truncated word trie: " + file);
+        }
+        return new DoubleArrayTrie(column(data, slots, 0), column(data, slots, 1), column(data, slots, 2),
+                column(data, slots, 3), data.getLong(16), data.getLong(24), true);
+    }
+
+    /**
+     * Writes the trie to a file that {@link #open(Path)} can map, replacing an existing one.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(TrieFormat.HEADER_SIZE)
+                    .putInt(TrieFormat.MAGIC)
+                    .putInt(TrieFormat.VERSION)
+                    .putInt(slots)
+                    .putInt(0)
+                    .putLong(wordCount)
+                    .putLong(totalCount);
+            writeFully(channel, header.flip());
+
+            ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+            for (IntBuffer column : new IntBuffer[]{base, check, max, links}) {
+                for (int slot = 0; slot < slots; ) {
+                    int length = Math.min(slots - slot, COPY_BUFFER_SIZE / 4);
+                    buffer.clear().asIntBuffer().put(column.duplicate().position(slot).limit(slot + length));
+                    writeFully(channel, buffer.limit(length * 4));
+                    slot += length;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of distinct words.
+     *
+     * @return the number of words in the trie
+     */
+    public long wordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Gets the sum of all counts.
+     *
+     * @return the number of words in the counted corpus
+     */
+    public long totalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Gets the number of slots, used or free, in the double array.
+     *
+     * @return the number of slots
+     */
+    public int slots() {
+        return slots;
+    }
+
+    /**
+     * Tells whether the slots are read from a mapped file rather than from the heap.
+     *
+     * @return {@code true} if the trie was opened from a file
+     */
+    public boolean isMapped() {
+        return mapped;
+    }
+
+    /**
+     * Gets the size of the slot arrays, which is also the size of the trie file.
+     *
+     * @return the size in bytes
+     */
+    public long footprintBytes() {
+        return TrieFormat.HEADER_SIZE + (long) TrieFormat.COLUMNS * slots * 4;
+    }
+
+    /**
+     * Looks up the count of a word.
+     *
+     * @param word the word
+     * @return its count, or zero if the word is not in the trie
+     */
+    public long frequency(String word) {
+        byte[] key = word.getBytes(StandardCharsets.UTF_8);
+        return frequency(key, 0, key.length);
+    }
+
+    /**
+     * Looks up the count of a word.
+     *
+     * @param key the buffer holding the word
+     * @param offset the index of the first byte of the word
+     * @param length the number of bytes in the word
+     * @return its count, or zero if the word is not in the trie
+     */
+    public long frequency(byte[] key, int offset, int length) {
+        int node = walk(key, offset, length);
+        int end = node < 0 ? -1 : child(node, TrieFormat.END);
+        return end < 0 ? 0 : ~base.get(end);
+    }
+
+    /**
+     * Tells whether a word is in the trie.
+     *
+     * @param word the word
+     * @return {@code true} if the word was counted
+     */
+    public boolean contains(String word) {
+        byte[] key = word.getBytes(StandardCharsets.UTF_8);
+        int node = walk(key, 0, key.length);
+        return node >= 0 && child(node, TrieFormat.END) >= 0;
+    }
+
+    /**
+     * Selects the most frequent words beginning with the prefix, ties broken alphabetically.
+     * Branches are opened in order of the highest count below them, so the search stops as
+     * soon as {@code k} words are out, however many words share the prefix.
+     *
+     * @param prefix the prefix, empty for every word
+     * @param k the maximum number of words to return
+     * @return the selected words, most frequent first
+     */
+    public List<Word> topWithPrefix(String prefix, int k) {
+        List<Word> words = new ArrayList<>(Math.max(0, Math.min(k, 64)));
+        byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+        int start = walk(key, 0, key.length);
+        if (start < 0 || k <= 0) {
+            return words;
+        }
+
+        PriorityQueue<Branch> branches = new PriorityQueue<>();
+        branches.add(new Branch(start, max.get(start), key, false));
+        while (!branches.isEmpty() && words.size() < k) {
+            Branch branch = branches.poll();
+            if (branch.end) {
+                words.add(new Word(new String(branch.path, StandardCharsets.UTF_8), branch.max));
+                continue;
+            }
+
+            int offset = base.get(branch.node);
+            for (int code = links.get(branch.node) >>> 16; code != TrieFormat.NONE;
+                 code = links.get(offset + code) & TrieFormat.NONE) {
+                int slot = offset + code;
+                if (code == TrieFormat.END) {
+                    branches.add(new Branch(slot, max.get(slot), branch.path, true));
+                } else {
+                    byte[] path = Arrays.copyOf(branch.path, branch.path.length + 1);
+                    path[branch.path.length] = (byte) (code - 1);
+                    branches.add(new Branch(slot, max.get(slot), path, false));
+                }
+            }
+        }
+        return words;
+    }
+
+    // Follows the bytes of a key from the root, returning the node reached or -1
+    private int walk(byte[] key, int offset, int length) {
+        int node = 0;
+        for (int i = offset; i < offset + length && node >= 0; i++) {
+            node = child(node, (key[i] & 0xFF) + 1);
+        }
+        return node;
+    }
+
+    private int child(int node, int code) {
+        int slot = base.get(node) + code;
+        return slot >= 0 && slot < slots && check.get(slot) == node ? slot : -1;
+    }
+
+    private static IntBuffer column(ByteBuffer data, int slots, int column) {
+        return data.slice(TrieFormat.HEADER_SIZE + column * slots * 4, slots * 4).asIntBuffer();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * A subtree waiting to be opened, or a word waiting to be selected. Frontier subtrees
+     * never overlap, so for equal counts the one with the smaller path holds the
+     * alphabetically smaller words.
+     */
+    private static final class Branch implements Comparable<Branch> {
+
+        private final int node;
+        private final int max;
+        private final byte[] path;
+        private final boolean end;
+
+        private Branch(int node, int max, byte[] path, boolean end) {
+            this.node = node;
+            this.max = max;
+            this.path = path;
+            this.end = end;
+        }
+
+        @Override
+        public int compareTo(Branch other) {
+            return max != other.max ? Integer.compare(other.max, max) : Arrays.compareUnsigned(path, other.path);
+        }
+    }
+}
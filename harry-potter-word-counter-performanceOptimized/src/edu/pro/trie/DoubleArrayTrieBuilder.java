@@ -0,0 +1,272 @@
+package edu.pro.trie;
+
+import edu.pro.count.WordCountTable;
+import edu.pro.index.EntrySink;
+import edu.pro.index.IndexCursor;
+import edu.pro.index.WordIndex;
+import edu.pro.rank.IdSorter;
+
+import java.util.Arrays;
+
+/**
+ * Builds a {@link DoubleArrayTrie} from words added in strictly increasing unsigned byte
+ * order, the order of a word index and of a merge. The words are only held in one byte arena
+ * until {@link #build()} lays the trie out, so no map of strings is needed.
+ *
+ * <p>The layout follows the classic double-array construction: the nodes are placed depth
+ * first, and the children of a node go to the first offset where every child code lands on a
+ * free slot. Searches start after the longest prefix of slots found to be at least 95% used,
+ * which keeps them close to linear while the free slots left in that prefix are few.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class DoubleArrayTrieBuilder
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+public final class DoubleArrayTrieBuilder implements EntrySink {
+
+    // Share of used slots in a base search above which the next search starts further on
+    private static final double DENSE = 0.95;
+
+    private byte[] arena = new byte[1024];
+    private int[] offsets = new int[65];
+    private int[] counts = new int[64];
+    private int size;
+    private long totalCount;
+
+    // Slot arrays while building
+    private int[] base;
+    private int[] check;
+    private int[] max;
+    private int[] links;
+    private int slots;
+    private int nextCheck;
+
+    /**
+     * Builds the trie of a word index.
+     *
+     * @param index the index to read
+     * @return the trie
+     */
+    public static DoubleArrayTrie of(WordIndex index) {
+        DoubleArrayTrieBuilder builder = new DoubleArrayTrieBuilder();
+        IndexCursor cursor = index.cursor();
+        while (cursor.next()) {
+            builder.add(cursor.word(), 0, cursor.wordLength(), cursor.count());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds the trie of the words of a table.
+     *
+     * @param table the counted words
+     * @return the trie
+     */
+    public static DoubleArrayTrie of(WordCountTable table) {
+        int[] ids = new int[table.size()];
+        Arrays.setAll(ids, id -> id);
+        IdSorter.sort(ids, table::compareWords);
+
+        DoubleArrayTrieBuilder builder = new DoubleArrayTrieBuilder();
+        for (int id : ids) {
+            builder.add(table.arena(), table.wordOffset(id), table.wordLength(id), table.count(id));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Appends a word.
+     *
+     * @param word the buffer holding the word
+     * @param offset the index of the first byte of the word
+     * @param length the number of bytes in the word
+     * @param count the count of the word
+     * @throws IllegalArgumentException if the word does not sort after the previous one
+     * @throws ArithmeticException if the count does not fit an {@code int}
+     */
+    @Override
+    public void accept(byte[] word, int offset, int length, long count) {
+        add(word, offset, length, count);
+    }
+
+    /**
+     * Appends a word.
+     *
+     * @param word the buffer holding the word
+     * @param offset the index of the first byte of the word
+     * @param length the number of bytes in the word
+     * @param count the count of the word
+     * @throws IllegalArgumentException if the word does not sort after the previous one
+     * @throws ArithmeticException if the count does not fit an {@code int}
+     */
+    public void add(byte[] word, int offset, int length, long count) {
+        if (size > 0 && Arrays.compareUnsigned(arena, offsets[size - 1], offsets[size],
+                word, offset, offset + length) >= 0) {
+            throw new IllegalArgumentException("Words must be added in increasing order: "
+                    + new String(word, offset, length) + " after "
+                    + new String(arena, offsets[size - 1], offsets[size] - offsets[size - 1]));
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Negative count: " + count);
+        }
+        if (size == counts.length) {
+            counts = Arrays.copyOf(counts, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2 + 1);
+        }
+        int start = offsets[size];
+        if (start + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, start + length));
+        }
+        System.arraycopy(word, offset, arena, start, length);
+        counts[size] = Math.toIntExact(count);
+        offsets[++size] = start + length;
+        totalCount += count;
+    }
+
+    /**
+     * Gets the number of words added so far.
+     *
+     * @return the number of words
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Lays the added words out as a double-array trie. The builder should not be used afterwards.
+     *
+     * @return the trie
+     */
+    public DoubleArrayTrie build() {
+        int capacity = Math.max(1024, offsets[size] + size + 1);
+        base = new int[capacity];
+        check = new int[capacity];
+        max = new int[capacity];
+        links = new int[capacity];
+        Arrays.fill(check, TrieFormat.FREE);
+        check[0] = 0;
+        links[0] = TrieFormat.NONE << 16 | TrieFormat.NONE;
+        slots = 1;
+        nextCheck = 1;
+
+        // Pending nodes as (slot, first word, end word, depth) quadruples, processed depth first
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = 0;
+        stack[top++] = size;
+        stack[top++] = 0;
+
+        int[] codes = new int[TrieFormat.ALPHABET];
+        int[] starts = new int[TrieFormat.ALPHABET + 1];
+        while (top > 0) {
+            int depth = stack[--top];
+            int end = stack[--top];
+            int begin = stack[--top];
+            int node = stack[--top];
+
+            // The words of a node are sorted, so words sharing the next code are adjacent
+            int children = 0;
+            int highest = 0;
+            for (int word = begin; word < end; word++) {
+                int code = offsets[word] + depth == offsets[word + 1]
+                        ? TrieFormat.END
+                        : (arena[offsets[word] + depth] & 0xFF) + 1;
+                if (children == 0 || code != codes[children - 1]) {
+                    codes[children] = code;
+                    starts[children++] = word;
+                }
+                highest = Math.max(highest, counts[word]);
+            }
+            starts[children] = end;
+            max[node] = highest;
+            if (children == 0) {
+                // Only the root of an empty trie; a base of 1 keeps every child probe off slot 0
+                base[node] = 1;
+                continue;
+            }
+
+            int offset = findBase(codes, children);
+            base[node] = offset;
+            links[node] = codes[0] << 16 | (links[node] & TrieFormat.NONE);
+            for (int child = 0; child < children; child++) {
+                int slot = offset + codes[child];
+                check[slot] = node;
+                links[slot] = TrieFormat.NONE << 16 | (child + 1 < children ? codes[child + 1] : TrieFormat.NONE);
+            }
+            slots = Math.max(slots, offset + codes[children - 1] + 1);
+
+            for (int child = children - 1; child >= 0; child--) {
+                int slot = offset + codes[child];
+                if (codes[child] == TrieFormat.END) {
+                    // Words are distinct, so exactly one word ends here
+                    base[slot] = ~counts[starts[child]];
+                    max[slot] = counts[starts[child]];
+                } else {
+                    if (top + 4 > stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[top++] = slot;
+                    stack[top++] = starts[child];
+                    stack[top++] = starts[child + 1];
+                    stack[top++] = depth + 1;
+                }
+            }
+        }
+
+        DoubleArrayTrie trie = new DoubleArrayTrie(Arrays.copyOf(base, slots), Arrays.copyOf(check, slots),
+                Arrays.copyOf(max, slots), Arrays.copyOf(links, slots), size, totalCount);
+        base = check = max = links = null;
+        return trie;
+    }
+
+    // Finds the lowest offset at which the slot of every code is free
+    private int findBase(int[] codes, int children) {
+        int first = codes[0];
+        int last = codes[children - 1];
+        // Offsets start at 1, so no child can land on the root
+        int start = Math.max(first + 1, nextCheck);
+        int position = start - 1;
+        int used = 0;
+        while (true) {
+            position++;
+            ensureCapacity(position + 1);
+            if (check[position] != TrieFormat.FREE) {
+                used++;
+                continue;
+            }
+
+            int offset = position - first;
+            ensureCapacity(offset + last + 1);
+            boolean fits = true;
+            for (int child = 1; child < children; child++) {
+                if (check[offset + codes[child]] != TrieFormat.FREE) {
+                    fits = false;
+                    break;
+                }
+            }
+            if (fits) {
+                // Only a search starting at nextCheck has seen every slot it would skip; if
+                // most of them are taken, later searches start here
+                if (start == nextCheck && (double) used / (position - nextCheck + 1) >= DENSE) {
+                    nextCheck = position;
+                }
+                return offset;
+            }
+        }
+    }
+
+    private void ensureCapacity(int length) {
+        if (length > check.length) {
+            int capacity = Math.max(length, check.length + (check.length >> 1));
+            int previous = check.length;
+            base = Arrays.copyOf(base, capacity);
+            check = Arrays.copyOf(check, capacity);
+            max = Arrays.copyOf(max, capacity);
+            links = Arrays.copyOf(links, capacity);
+            Arrays.fill(check, previous, capacity, TrieFormat.FREE);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package edu.pro.trie;
+
+/**
+ * Layout of a double-array trie file. All numbers are big-endian, so the file can be mapped
+ * and read in place.
+ *
+ * <pre>
+ * header  int magic, int version, int slots, int reserved, long wordCount, long totalCount
+ * base    int per slot: the offset of the children of a node, or ~count for a word end
+ * check   int per slot: the parent of the node in the slot, or -1 if the slot is free
+ * max     int per slot: the highest count among the words below the node
+ * links   int per slot: the code of the first child in the high 16 bits, the code of the
+ *         next sibling in the low 16 bits, {@link #NONE} where there is none
+ * </pre>
+ *
+ * A node reaches its child for code {@code c} at {@code base + c}. Code 0 marks the end of a
+ * word and a byte {@code b} of a word has code {@code (b & 0xFF) + 1}. The root is slot 0.
+ *
+ * @author Volodymyr Voroniuk
+ * @project harry-potter-word-counter
+ * @class TrieFormat
+ * @version 1.0.0
+ * @since 18.10.26 - 11.10
+ */
+final class TrieFormat {
+
+    // "DATR" in ASCII
+    static final int MAGIC = 0x44415452;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 32;
+
+    // Number of int columns per slot: base, check, max and links
+    static final int COLUMNS = 4;
+
+    // Check value of a slot no node uses
+    static final int FREE = -1;
+
+    // Code of the end of a word
+    static final int END = 0;
+
+    // Link code meaning no child or no further sibling
+    static final int NONE = 0xFFFF;
+
+    // Number of codes: the end of a word and the 256 byte values
+    static final int ALPHABET = 257;
+
+    private TrieFormat() {
+    }
+}